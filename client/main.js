@@ -4,6 +4,12 @@
 	const API_BASE = window.API_BASE || '/server/SkillBridge';
 
 	let learnings = [];
+	// Next applied-skills page of the open learning: { learningId, cursor }, or null when all are shown
+	let appliedNext = null;
+	// Ids from the last recommendations answer, best first; kept across list reloads
+	let focusIds = [];
+	// Code points of notes and applied_action shown per card until "Show full text"
+	const APPLIED_PREVIEW_CHARS = 160;
 
 	function get(path) {
 		return fetch(API_BASE + path, {
@@ -89,32 +95,13 @@
 		});
 		const top3Pending = pendingByOldest.slice(0, 3);
 
-		const focusListEl = document.getElementById('focus-list');
-		const focusEmptyEl = document.getElementById('focus-empty');
 		const focusBadgeEl = document.getElementById('focus-pending-badge');
 		if (focusBadgeEl) focusBadgeEl.textContent = stats.pending + ' pending';
-
-		if (focusListEl) {
-			focusListEl.innerHTML = '';
-			if (top3Pending.length === 0) {
-				if (focusEmptyEl) focusEmptyEl.classList.remove('hidden');
-			} else {
-				if (focusEmptyEl) focusEmptyEl.classList.add('hidden');
-				top3Pending.forEach(function (l) {
-					const card = document.createElement('div');
-					card.className = 'focus-item';
-					card.setAttribute('data-learning-id', l.id);
-					card.innerHTML = '<span class="focus-topic">' + escapeHtml(l.topic) + '</span>' +
-						'<span class="badge badge-cat">' + escapeHtml(l.category) + '</span>' +
-						'<span class="focus-date">Not started</span>' +
-						'<button type="button" class="btn btn-small">Open →</button>';
-					card.addEventListener('click', function (e) {
-						openLearningDetail(l.id);
-					});
-					focusListEl.appendChild(card);
-				});
-			}
-		}
+		// Last recommendations that are still pending, else oldest first (also on failure)
+		const focus = focusIds.map(function (id) {
+			return pendingList.find(function (l) { return String(l.id) === id; });
+		}).filter(Boolean);
+		renderFocusList(focus.length > 0 ? focus : top3Pending);
 
 		const needsListEl = document.getElementById('needs-list');
 		const needsEmptyEl = document.getElementById('needs-empty');
@@ -139,6 +126,44 @@
 		}
 	}
 
+	function renderFocusList(items) {
+		const focusListEl = document.getElementById('focus-list');
+		const focusEmptyEl = document.getElementById('focus-empty');
+		if (!focusListEl) return;
+		focusListEl.innerHTML = '';
+		if (items.length === 0) {
+			if (focusEmptyEl) focusEmptyEl.classList.remove('hidden');
+			return;
+		}
+		if (focusEmptyEl) focusEmptyEl.classList.add('hidden');
+		items.forEach(function (l) {
+			const card = document.createElement('div');
+			card.className = 'focus-item';
+			card.setAttribute('data-learning-id', l.id);
+			card.innerHTML = '<span class="focus-topic">' + escapeHtml(l.topic) + '</span>' +
+				'<span class="badge badge-cat">' + escapeHtml(l.category) + '</span>' +
+				'<span class="focus-date">Not started</span>' +
+				'<button type="button" class="btn btn-small">Open →</button>';
+			card.addEventListener('click', function (e) {
+				openLearningDetail(l.id);
+			});
+			focusListEl.appendChild(card);
+		});
+	}
+
+	function loadRecommendations() {
+		get('/api/recommendations?k=3')
+			.then(function (res) {
+				if (!res.ok) return res.json().then(function (d) { throw new Error(d.error || res.statusText); });
+				return res.json();
+			})
+			.then(function (data) {
+				focusIds = (data.items || []).map(function (l) { return String(l.id); });
+				if (focusIds.length > 0) renderFocusList(data.items);
+			})
+			.catch(function () {});
+	}
+
 	function renderListViewModel() {
 		const stats = computeStats();
 		const needs = learnings.filter(function (l) { return l.appliedCount === 0; });
@@ -185,7 +210,7 @@
 	}
 
 	function loadLearningDetail(learningId) {
-		get('/api/learning/' + learningId)
+		get('/api/learning/' + learningId + '?preview=' + APPLIED_PREVIEW_CHARS)
 			.then(function (res) {
 				if (!res.ok) return res.json().then(function (d) { throw new Error(d.error || res.statusText); });
 				return res.json();
@@ -193,13 +218,38 @@
 			.then(function (data) {
 				if (!data) return;
 				renderDetailLearning(data.learning);
-				renderAppliedCards(data.appliedSkills || []);
+				renderAppliedCards(data.appliedSkills || [], false);
+				setAppliedNext(learningId, data.appliedNextCursor);
 			})
 			.catch(function (err) {
 				showToast(err.message || 'Failed to load learning.', true);
 			});
 	}
 
+	function setAppliedNext(learningId, cursor) {
+		appliedNext = cursor ? { learningId: learningId, cursor: cursor } : null;
+		const moreBtn = document.getElementById('btn-applied-more');
+		if (moreBtn) moreBtn.classList.toggle('hidden', !appliedNext);
+	}
+
+	function loadMoreApplied() {
+		if (!appliedNext) return;
+		const learningId = appliedNext.learningId;
+		get('/api/learning/' + learningId + '/applied?after=' + encodeURIComponent(appliedNext.cursor) + '&limit=20&preview=' + APPLIED_PREVIEW_CHARS)
+			.then(function (res) {
+				if (!res.ok) return res.json().then(function (d) { throw new Error(d.error || res.statusText); });
+				return res.json();
+			})
+			.then(function (data) {
+				if (!data || !appliedNext || appliedNext.learningId !== learningId) return;
+				renderAppliedCards(data.items || [], true);
+				setAppliedNext(learningId, data.nextCursor);
+			})
+			.catch(function (err) {
+				showToast(err.message || 'Failed to load applied skills.', true);
+			});
+	}
+
 	function renderDetailLearning(learning) {
 		const panel = document.getElementById('detail-learning-panel');
 		if (!panel) return;
@@ -213,12 +263,12 @@
 			'<p class="detail-source">Source: ' + escapeHtml(learning.source || '—') + '</p>';
 	}
 
-	function renderAppliedCards(appliedSkills) {
+	function renderAppliedCards(appliedSkills, append) {
 		const container = document.getElementById('applied-cards');
 		const emptyEl = document.getElementById('applied-empty');
 		if (!container) return;
-		container.innerHTML = '';
-		if (!appliedSkills || appliedSkills.length === 0) {
+		if (!append) container.innerHTML = '';
+		if (!append && (!appliedSkills || appliedSkills.length === 0)) {
 			if (emptyEl) emptyEl.classList.remove('hidden');
 			return;
 		}
@@ -230,14 +280,55 @@
 				'<div class="applied-card-tags">' +
 				'<span class="badge badge-type">' + escapeHtml(a.type) + '</span>' +
 				'</div>' +
-				'<p class="applied-card-action">' + (a.applied_action ? escapeHtml(a.applied_action) : '') + '</p>' +
-				'<p class="applied-card-notes">' + (a.notes ? escapeHtml(a.notes) : '—') + '</p>' +
+				'<p class="applied-card-action"></p>' +
+				'<p class="applied-card-notes"></p>' +
+				(a.truncated ? '<button type="button" class="btn btn-ghost applied-card-full">Show full text</button>' : '') +
 				'<span class="applied-card-date">' + formatDate(a.createdTime) + '</span>';
+			fillAppliedText(card, a, a.truncated);
+			if (a.truncated) {
+				card.querySelector('.applied-card-full').addEventListener('click', function () {
+					loadFullApplied(card, a.id);
+				});
+			}
 			container.appendChild(card);
 		});
 	}
 
-	function loadLearnings() {
+	function fillAppliedText(card, a, truncated) {
+		const action = a.applied_action || '';
+		const notes = a.notes || '';
+		const ellipsis = truncated ? '…' : '';
+		card.querySelector('.applied-card-action').innerHTML = action
+			? escapeHtml(action) + (a.appliedActionLength > Array.from(action).length ? ellipsis : '')
+			: '';
+		card.querySelector('.applied-card-notes').innerHTML = notes
+			? escapeHtml(notes) + (a.notesLength > Array.from(notes).length ? ellipsis : '')
+			: '—';
+	}
+
+	function loadFullApplied(card, appliedId) {
+		const btn = card.querySelector('.applied-card-full');
+		if (btn) btn.disabled = true;
+		get('/api/applied/' + appliedId)
+			.then(function (res) {
+				if (!res.ok) return res.json().then(function (d) { throw new Error(d.error || res.statusText); });
+				return res.json();
+			})
+			.then(function (data) {
+				if (!data) return;
+				fillAppliedText(card, data, false);
+				if (btn) btn.remove();
+			})
+			.catch(function (err) {
+				if (btn) btn.disabled = false;
+				showToast(err.message || 'Failed to load applied skill.', true);
+			});
+	}
+
+	// withFocus: also ask the recommender for "Today's focus". Only when the dashboard is
+	// being shown, since recommendations cost 10 read tokens and loadLearnings runs after
+	// most edits and on every list view.
+	function loadLearnings(withFocus) {
 		get('/api/learning')
 			.then(function (res) {
 				if (!res.ok) return res.json().then(function (d) { throw new Error(d.error || res.statusText); });
@@ -247,6 +338,7 @@
 				learnings = Array.isArray(data) ? data : [];
 				renderDashboard();
 				renderListViewModel();
+				if (withFocus && computeStats().pending > 0) loadRecommendations();
 			})
 			.catch(function (err) {
 				showToast(err.message || 'Failed to load learnings.', true);
@@ -262,7 +354,7 @@
 		showView('dashboard-view');
 		var headerActions = document.getElementById('header-actions');
 		if (headerActions) headerActions.classList.remove('hidden');
-		loadLearnings();
+		loadLearnings(true);
 	}
 
 	function showListView() {
@@ -308,12 +400,19 @@
 
 		post('/api/learning', { topic: topic, category: category, source: source || undefined })
 			.then(function (res) {
+				// A duplicate opens the learning the user already has instead of failing
+				if (res.status === 409) return res.json().then(function (d) { return { duplicateOf: d.id }; });
 				if (!res.ok) return res.json().then(function (d) { throw new Error(d.error || res.statusText); });
 				return res.json();
 			})
-			.then(function () {
+			.then(function (data) {
 				document.getElementById('form-add-learning').reset();
 				closeModal('modal-add-learning');
+				if (data.duplicateOf) {
+					showToast('You already have this learning.');
+					openLearningDetail(data.duplicateOf);
+					return;
+				}
 				showToast('Learning added.');
 				loadLearnings();
 			})
@@ -368,6 +467,7 @@
 		document.getElementById('btn-add-applied-skill').addEventListener('click', function () {
 			openModal('modal-add-applied');
 		});
+		document.getElementById('btn-applied-more').addEventListener('click', loadMoreApplied);
 
 		document.getElementById('form-add-learning').addEventListener('submit', handleAddLearningSubmit);
 		document.getElementById('form-add-applied').addEventListener('submit', handleAddAppliedSubmit);
@@ -383,7 +483,7 @@
 
 	function init() {
 		bindEvents();
-		loadLearnings();
+		loadLearnings(true);
 	}
 
 	if (document.readyState === 'loading') {
@@ -0,0 +1,221 @@
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Asynchronous structured access log.
+ * Request threads claim a slot in a fixed ring with a CAS and publish it; when the ring is
+ * full the entry is dropped and counted, so recording never blocks. A single daemon thread
+ * drains the ring on a timer and emits each batch as one log record of JSON lines.
+ */
+final class AccessLog {
+	private static final Logger LOGGER = Logger.getLogger("SkillBridge.access");
+
+	private final int mask;
+	private final double sampleRate;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	// published[i] holds seq + 1 once slot i is fully written for sequence seq
+	private final AtomicLongArray published;
+	private final String[] methods;
+	private final String[] uris;
+	private final int[] statuses;
+	private final long[] latencyMicros;
+	private final int[] queries;
+	private final long[] bytes;
+	private final long[] timestamps;
+
+	AccessLog(int capacity, double sampleRate, long flushMillis) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.mask = size - 1;
+		this.sampleRate = sampleRate;
+		this.published = new AtomicLongArray(size);
+		this.methods = new String[size];
+		this.uris = new String[size];
+		this.statuses = new int[size];
+		this.latencyMicros = new long[size];
+		this.queries = new int[size];
+		this.bytes = new long[size];
+		this.timestamps = new long[size];
+
+		ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "skillbridge-access-log");
+			t.setDaemon(true);
+			return t;
+		});
+		drainer.scheduleWithFixedDelay(this::drain, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "skillbridge-access-log-flush"));
+	}
+
+	// Decided once at the start of a request so unsampled requests skip byte counting entirely
+	boolean sample() {
+		return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+	}
+
+	void record(String method, String uri, int status, long latencyNanos, int queryCount, long byteCount) {
+		long seq;
+		do {
+			seq = tail.get();
+			if (seq - head.get() > mask) {
+				dropped.incrementAndGet();
+				return;
+			}
+		} while (!tail.compareAndSet(seq, seq + 1));
+
+		int i = (int) seq & mask;
+		methods[i] = method;
+		uris[i] = uri;
+		statuses[i] = status;
+		latencyMicros[i] = latencyNanos / 1000;
+		queries[i] = queryCount;
+		bytes[i] = byteCount;
+		timestamps[i] = System.currentTimeMillis();
+		published.lazySet(i, seq + 1);
+	}
+
+	private synchronized void drain() {
+		try {
+			long h = head.get();
+			StringBuilder batch = null;
+			while (true) {
+				int i = (int) h & mask;
+				if (published.get(i) != h + 1) break;
+				if (batch == null) batch = new StringBuilder(256);
+				batch.append("{\"ts\":").append(timestamps[i])
+					.append(",\"route\":\"").append(StringBuilderResponseWriter.escapeJson(routeTemplate(methods[i], uris[i])))
+					.append("\",\"status\":").append(statuses[i])
+					.append(",\"latencyUs\":").append(latencyMicros[i])
+					.append(",\"queries\":").append(queries[i])
+					.append(",\"bytes\":").append(bytes[i])
+					.append("}\n");
+				methods[i] = null;
+				uris[i] = null;
+				head.lazySet(++h);
+			}
+			long lost = dropped.getAndSet(0);
+			if (lost > 0) {
+				if (batch == null) batch = new StringBuilder(64);
+				batch.append("{\"dropped\":").append(lost).append("}\n");
+			}
+			if (batch != null) {
+				LOGGER.log(Level.INFO, batch.toString());
+			}
+		} catch (Throwable t) {
+			LOGGER.log(Level.WARNING, "Access log drain failed", t);
+		}
+	}
+
+	// "/api/learning/123/applied" -> "/api/learning/{id}/applied", so routes aggregate
+	static String routeTemplate(String method, String uri) {
+		StringBuilder route = new StringBuilder(method.length() + uri.length() + 4).append(method).append(' ');
+		int n = uri.length();
+		int i = 0;
+		while (i < n) {
+			char c = uri.charAt(i);
+			route.append(c);
+			i++;
+			if (c == '/') {
+				int j = i;
+				while (j < n && Character.isDigit(uri.charAt(j))) j++;
+				if (j > i && (j == n || uri.charAt(j) == '/')) {
+					route.append("{id}");
+					i = j;
+				}
+			}
+		}
+		return route.toString();
+	}
+
+	/**
+	 * Response wrapper that counts bytes written through either getOutputStream or getWriter.
+	 */
+	static final class CountingResponse extends HttpServletResponseWrapper {
+		private CountingStream stream;
+		private PrintWriter writer;
+
+		CountingResponse(HttpServletResponse response) {
+			super(response);
+		}
+
+		long bytesWritten() {
+			if (writer != null) writer.flush();
+			return stream != null ? stream.count : 0;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (stream == null) stream = new CountingStream(super.getOutputStream());
+			return stream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				// Encoding is resolved now, after any setCharacterEncoding by the handler
+				writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+			}
+			return writer;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (writer != null) writer.flush();
+			super.flushBuffer();
+		}
+	}
+
+	private static final class CountingStream extends ServletOutputStream {
+		private final ServletOutputStream delegate;
+		long count;
+
+		CountingStream(ServletOutputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			delegate.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			delegate.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			delegate.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+
+		@Override
+		public boolean isReady() {
+			return delegate.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			delegate.setWriteListener(listener);
+		}
+	}
+}
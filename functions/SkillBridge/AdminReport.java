@@ -0,0 +1,203 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Organization-wide progress per user (CREATORID) and category for one partition: a range of
+ * CREATORIDs. Each partition scans its users' learnings, then their applied skills, so whether a
+ * learning has been applied is decided inside the partition, and every user in it is complete
+ * when it finishes. Partitions are written out one by one in CREATORID order and then dropped,
+ * so the report never holds more than the partitions in flight.
+ */
+final class AdminReport {
+	private static final int LEARNINGS = 0;
+	private static final int LEARNINGS_APPLIED = 1;
+	private static final int APPLIED = 2;
+
+	// Reads one partition: learnings and applied skills with after < CREATORID <= upTo
+	interface PartitionScan {
+		AdminReport scan(long after, long upTo) throws Exception;
+	}
+
+	/**
+	 * Splits (after, upTo] into at most partitions equal-width ranges and scans them on pool,
+	 * window at a time, handing them back in ascending order. A partition that finishes before
+	 * the one ahead of it waits for it, so at most window partitions are held at once.
+	 */
+	static final class Partitions {
+		private final ExecutorService pool;
+		private final PartitionScan scan;
+		private final long after;
+		private final long upTo;
+		private final int count;
+		private final int window;
+		private final ArrayDeque<Future<AdminReport>> pending = new ArrayDeque<Future<AdminReport>>();
+		private int submitted;
+
+		Partitions(ExecutorService pool, PartitionScan scan, long after, long upTo, int partitions, int window) {
+			this.pool = pool;
+			this.scan = scan;
+			this.after = after;
+			this.upTo = upTo;
+			this.count = upTo > after ? (int) Math.min(partitions, upTo - after) : 0;
+			this.window = Math.max(1, window);
+			fill();
+		}
+
+		int count() {
+			return count;
+		}
+
+		// The next partition in CREATORID order, or null after the last. A failed scan cancels the rest.
+		AdminReport next() throws Exception {
+			Future<AdminReport> head = pending.poll();
+			if (head == null) return null;
+			AdminReport report;
+			try {
+				report = head.get();
+			} catch (ExecutionException e) {
+				cancel();
+				throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+			} catch (InterruptedException e) {
+				cancel();
+				Thread.currentThread().interrupt();
+				throw e;
+			}
+			fill();
+			return report.finishPartition();
+		}
+
+		void cancel() {
+			for (Future<AdminReport> partition : pending) partition.cancel(true);
+			pending.clear();
+			submitted = count;
+		}
+
+		private void fill() {
+			while (pending.size() < window && submitted < count) {
+				long from = bound(submitted);
+				long to = bound(++submitted);
+				pending.add(pool.submit(() -> scan.scan(from, to)));
+			}
+		}
+
+		private long bound(int partition) {
+			return partition == count ? upTo : after + (upTo - after) / count * partition;
+		}
+	}
+
+	// Totals for the closing "summary" line, over the partitions written so far
+	static final class Summary {
+		private final long[] total = new long[3];
+		private long users;
+		private long queries;
+
+		long queries() {
+			return queries;
+		}
+
+		void write(ResponseWriter out, int partitions, long tookMillis) throws Exception {
+			out.beginObject()
+				.field("record", "summary")
+				.field("users", users);
+			counts(out, total)
+				.field("partitions", partitions)
+				.field("queries", queries)
+				.field("tookMs", tookMillis)
+				.endObject();
+		}
+	}
+
+	// User -> category -> { learnings, learningsApplied, applied }
+	private final TreeMap<Long, TreeMap<String, long[]>> users = new TreeMap<Long, TreeMap<String, long[]>>();
+	private long queries;
+	// Partition-local: learning ROWID -> index + 1 into learningCounters and applied
+	private LongIntMap learningIndex = new LongIntMap(64);
+	private ArrayList<long[]> learningCounters = new ArrayList<long[]>();
+	private BitSet applied = new BitSet();
+
+	void addLearning(long learningId, long userId, String category) {
+		if (learningId <= 0) return;
+		TreeMap<String, long[]> categories = users.get(userId);
+		if (categories == null) {
+			categories = new TreeMap<String, long[]>();
+			users.put(userId, categories);
+		}
+		long[] counters = categories.get(category);
+		if (counters == null) {
+			counters = new long[3];
+			categories.put(category, counters);
+		}
+		counters[LEARNINGS]++;
+		learningCounters.add(counters);
+		learningIndex.add(learningId, learningCounters.size());
+	}
+
+	// Applied skills of deleted learnings, or of learnings outside this partition, are ignored
+	void addApplied(long learningId) {
+		int index = learningIndex.get(learningId) - 1;
+		if (index < 0) return;
+		long[] counters = learningCounters.get(index);
+		counters[APPLIED]++;
+		if (!applied.get(index)) {
+			applied.set(index);
+			counters[LEARNINGS_APPLIED]++;
+		}
+	}
+
+	void countQuery() {
+		queries++;
+	}
+
+	// Drops the per-learning state once the partition's applied skills are in
+	AdminReport finishPartition() {
+		learningIndex = null;
+		learningCounters = null;
+		applied = null;
+		return this;
+	}
+
+	/**
+	 * Writes this partition's users as NDJSON, in ascending id order: one "category" line per
+	 * user and category, then that user's "user" line, and adds them to summary. The output is
+	 * flushed after each user so a large partition streams out rather than building up in the
+	 * response buffer.
+	 */
+	void write(ResponseWriter out, Summary summary) throws Exception {
+		for (Map.Entry<Long, TreeMap<String, long[]>> user : users.entrySet()) {
+			String userId = String.valueOf(user.getKey());
+			long[] sum = new long[3];
+			for (Map.Entry<String, long[]> category : user.getValue().entrySet()) {
+				long[] counters = category.getValue();
+				out.beginObject()
+					.field("record", "category")
+					.field("userId", userId)
+					.field("category", category.getKey());
+				counts(out, counters).endObject();
+				for (int i = 0; i < sum.length; i++) sum[i] += counters[i];
+			}
+			out.beginObject()
+				.field("record", "user")
+				.field("userId", userId)
+				.field("categories", user.getValue().size());
+			counts(out, sum)
+				.field("progress", sum[LEARNINGS] > 0 ? Math.round(100.0 * sum[LEARNINGS_APPLIED] / sum[LEARNINGS]) : 0)
+				.endObject();
+			out.flush();
+			for (int i = 0; i < sum.length; i++) summary.total[i] += sum[i];
+		}
+		summary.users += users.size();
+		summary.queries += queries;
+	}
+
+	private static ResponseWriter counts(ResponseWriter out, long[] counters) throws Exception {
+		return out.field("learnings", counters[LEARNINGS])
+			.field("learningsApplied", counters[LEARNINGS_APPLIED])
+			.field("applied", counters[APPLIED]);
+	}
+}
@@ -0,0 +1,65 @@
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.catalyst.config.ZCThreadLocal;
+
+/**
+ * Snapshot of the Catalyst SDK request context, for running Data Store calls on another thread.
+ * The SDK reads the caller's credentials from ZCThreadLocal, an InheritableThreadLocal that is
+ * copied only when a thread is created, so a pooled or background thread would otherwise keep
+ * the context of whichever request happened to start it.
+ */
+final class CatalystContext {
+	private static final Logger LOGGER = Logger.getLogger(CatalystContext.class.getName());
+
+	// The SDK exposes single keys only, so the whole map is reached through its private field
+	private static final ThreadLocal<HashMap<String, Object>> VALUES = findValues();
+
+	private final HashMap<String, Object> values;
+
+	private CatalystContext(HashMap<String, Object> values) {
+		this.values = values;
+	}
+
+	// False when the SDK internals could not be reached; callers then keep SDK work on the request thread
+	static boolean available() {
+		return VALUES != null;
+	}
+
+	// Copies the calling thread's context; later changes on that thread are not seen
+	static CatalystContext capture() {
+		HashMap<String, Object> current = VALUES != null ? VALUES.get() : null;
+		return new CatalystContext(current != null ? new HashMap<String, Object>(current) : null);
+	}
+
+	// Runs task with this context installed, restoring the thread's own context afterwards
+	<T> T call(Callable<T> task) throws Exception {
+		if (VALUES == null || values == null) return task.call();
+		HashMap<String, Object> previous = VALUES.get();
+		VALUES.set(new HashMap<String, Object>(values));
+		try {
+			return task.call();
+		} finally {
+			if (previous != null) {
+				VALUES.set(previous);
+			} else {
+				VALUES.remove();
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ThreadLocal<HashMap<String, Object>> findValues() {
+		try {
+			Field field = ZCThreadLocal.class.getDeclaredField("zcThreadLocal");
+			field.setAccessible(true);
+			return (ThreadLocal<HashMap<String, Object>>) field.get(null);
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Catalyst request context cannot be carried to worker threads", e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+import com.zc.component.cache.ZCCache;
+import com.zc.component.cache.ZCCacheObject;
+
+/**
+ * SharedCache on Catalyst Cache, in one segment or the project's default segment.
+ * Catalyst expiry is set in whole hours, so a TTL is rounded up to the next hour; values carry
+ * their own versioning, so a value outliving its TTL is never served stale.
+ * Calls use the Catalyst SDK context of the calling thread.
+ */
+final class CatalystSharedCache implements SharedCache {
+	// null for the default segment
+	private final Long segmentId;
+
+	CatalystSharedCache(Long segmentId) {
+		this.segmentId = segmentId;
+	}
+
+	@Override
+	public String get(String key) throws Exception {
+		if (segmentId != null) return ZCCache.getInstance().getSegmentInstance(segmentId).getCacheValue(key);
+		ZCCacheObject object = ZCCache.getInstance().getCacheObject(key);
+		return object != null ? object.getValue() : null;
+	}
+
+	@Override
+	public void put(String key, String value, long ttlSeconds) throws Exception {
+		long hours = Math.max(1L, (ttlSeconds + 3599L) / 3600L);
+		// Catalyst separates insert from update, so a failed insert of an existing key (a bumped version) is retried as an update
+		try {
+			if (segmentId != null) {
+				ZCCache.getInstance().getSegmentInstance(segmentId).putCacheValue(key, value, hours);
+			} else {
+				ZCCache.getInstance().putCacheValue(key, value, hours);
+			}
+		} catch (Exception e) {
+			if (segmentId != null) {
+				ZCCache.getInstance().getSegmentInstance(segmentId).updateCacheValue(key, value, hours);
+			} else {
+				ZCCache.getInstance().updateCacheValue(key, value, hours);
+			}
+		}
+	}
+
+	@Override
+	public String name() {
+		return "catalyst";
+	}
+}
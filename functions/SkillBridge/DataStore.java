@@ -0,0 +1,63 @@
+import java.util.ArrayList;
+
+import com.zc.common.ZCProject;
+import com.zc.component.ZCUserDetail;
+import com.zc.component.object.ZCObject;
+import com.zc.component.object.ZCRowObject;
+import com.zc.component.object.ZCTable;
+import com.zc.component.users.ZCUser;
+import com.zc.component.zcql.ZCQL;
+
+/**
+ * The Catalyst entry points behind every Data Store call and user lookup. The default goes to
+ * the SDK; the query budget test (scripts/test/QueryBudgetTest.java) installs an in-memory one so
+ * the routes can be driven without a Catalyst runtime. Counting and budgets stay in the
+ * SkillBridge helpers that call it.
+ */
+abstract class DataStore {
+	private static volatile DataStore current = new Sdk();
+
+	static DataStore get() {
+		return current;
+	}
+
+	// For tests; swap before the first request, not while requests run
+	static void install(DataStore dataStore) {
+		current = dataStore;
+	}
+
+	// With project null, runs under the calling thread's SDK context
+	abstract ArrayList<ZCRowObject> executeQuery(ZCProject project, String zcql) throws Exception;
+
+	// Looks the table up by name, which costs a metadata call
+	abstract ZCTable table(String name) throws Exception;
+
+	// A handle from a known id, without a call
+	abstract ZCTable table(long id) throws Exception;
+
+	// CREATORID of the signed-in user, or null
+	abstract Long currentUserId() throws Exception;
+
+	private static final class Sdk extends DataStore {
+		@Override
+		ArrayList<ZCRowObject> executeQuery(ZCProject project, String zcql) throws Exception {
+			return (project != null ? ZCQL.getInstance(project) : ZCQL.getInstance()).executeQuery(zcql);
+		}
+
+		@Override
+		ZCTable table(String name) throws Exception {
+			return ZCObject.getInstance().getTable(name);
+		}
+
+		@Override
+		ZCTable table(long id) throws Exception {
+			return ZCObject.getInstance().getTableInstance(id);
+		}
+
+		@Override
+		Long currentUserId() throws Exception {
+			ZCUserDetail user = ZCUser.getInstance().getCurrentUser();
+			return user != null ? user.getUserId() : null;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-user index of learnings by normalized topic and category, so a create can find an
+ * existing duplicate without scanning. Keys are 64-bit hashes of the normalized text; a hit is
+ * only a candidate, which the caller confirms against the stored row.
+ * A user's index is one PerUserCache entry: loaded lazily from the Data Store, then kept current
+ * by add() and remove(). The cache supplies the generations, LRU eviction and the TTL that bounds
+ * how long creates and deletes served by other instances go unseen.
+ */
+final class DuplicateIndex {
+	// lookup() result when the user's index is not loaded
+	static final long NOT_LOADED = -1L;
+
+	private static final String INDEX = "index";
+
+	// One user's index; guarded by its own lock, since add() and remove() update it in place
+	private static final class Index {
+		// Normalized key hash -> learning id, and back, for removal by id
+		private final HashMap<Long, Long> idByKey;
+		private final HashMap<Long, Long> keyById;
+
+		Index(HashMap<Long, Long> idByKey) {
+			this.idByKey = idByKey;
+			this.keyById = new HashMap<Long, Long>(idByKey.size() * 2);
+			for (Map.Entry<Long, Long> entry : idByKey.entrySet()) {
+				keyById.put(entry.getValue(), entry.getKey());
+			}
+		}
+
+		synchronized long lookup(long key) {
+			Long id = idByKey.get(key);
+			return id != null ? id : 0L;
+		}
+
+		synchronized void add(long key, long learningId) {
+			if (idByKey.containsKey(key)) return;
+			idByKey.put(key, learningId);
+			keyById.put(learningId, key);
+		}
+
+		synchronized void remove(long learningId) {
+			Long key = keyById.remove(learningId);
+			if (key != null) idByKey.remove(key);
+		}
+	}
+
+	private final PerUserCache<Index> users;
+
+	DuplicateIndex(int maxUsers, long ttlMillis) {
+		this.users = new PerUserCache<Index>(maxUsers, 1, ttlMillis);
+	}
+
+	/**
+	 * Case, surrounding and repeated whitespace, and Unicode compatibility forms are ignored,
+	 * so "Java Streams" and "java  streams " share a key.
+	 */
+	static long key(String topic, String category) {
+		long h = Fnv1a.hash(normalize(topic));
+		// Unit separator, so topic and category cannot trade characters
+		h = Fnv1a.mix(h, 0x1f);
+		return Fnv1a.hash(h, normalize(category));
+	}
+
+	static String normalize(String value) {
+		if (value == null) return "";
+		String folded = Normalizer.normalize(value, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		StringBuilder out = new StringBuilder(folded.length());
+		boolean space = false;
+		for (int i = 0; i < folded.length(); i++) {
+			char c = folded.charAt(i);
+			if (Character.isWhitespace(c)) {
+				space = out.length() > 0;
+				continue;
+			}
+			if (space) out.append(' ');
+			space = false;
+			out.append(c);
+		}
+		return out.toString();
+	}
+
+	// The indexed learning id for key, 0 when there is none, or NOT_LOADED
+	long lookup(long userId, long key) {
+		Index index = users.get(userId, INDEX);
+		return index != null ? index.lookup(key) : NOT_LOADED;
+	}
+
+	// Take before scanning and pass to load(), so a scan that raced a change is discarded
+	long generation(long userId) {
+		return users.generation(userId);
+	}
+
+	void load(long userId, long generation, HashMap<Long, Long> idByKey) {
+		users.put(userId, INDEX, generation, new Index(idByKey));
+	}
+
+	// Records a created learning; the first id under a key wins
+	void add(long userId, long key, long learningId) {
+		Index index = users.change(userId, INDEX);
+		if (index != null) index.add(key, learningId);
+	}
+
+	void remove(long userId, long learningId) {
+		Index index = users.change(userId, INDEX);
+		if (index != null) index.remove(learningId);
+	}
+
+	// Drops the user's index after changes that are not tracked one by one, such as an import
+	void invalidate(long userId) {
+		users.invalidate(userId);
+	}
+
+	// Users with a loaded index
+	int size() {
+		return users.size();
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ * 64-bit FNV-1a over UTF-16 code units, for short cache and index keys. Fast and well spread,
+ * but not collision resistant, so a match is only ever a candidate or a cache slot.
+ */
+final class Fnv1a {
+	static final long OFFSET = 0xcbf29ce484222325L;
+	private static final long PRIME = 0x100000001b3L;
+
+	private Fnv1a() {
+	}
+
+	static long hash(CharSequence value) {
+		return hash(OFFSET, value);
+	}
+
+	// Continues h over value, so several fields can go into one hash
+	static long hash(long h, CharSequence value) {
+		for (int i = 0; i < value.length(); i++) {
+			h ^= value.charAt(i);
+			h *= PRIME;
+		}
+		return h;
+	}
+
+	// Mixes in one code unit, e.g. a separator between fields
+	static long mix(long h, int unit) {
+		return (h ^ unit) * PRIME;
+	}
+}
@@ -0,0 +1,200 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional hedging, with deadlines, for idempotent Data Store reads.
+ * With hedging off a read runs on the awaiting thread when it is awaited, and not at all if it
+ * is cancelled first. With hedging on it starts on the executor at once; a read that has not
+ * answered by the rolling percentile of recent reads gets one identical second attempt, and the
+ * first answer wins. The deadline runs from when the first attempt starts, so time spent queued
+ * for a thread does not count against the Data Store; a read that waits a whole deadline for a
+ * thread fails too. Hedges are capped at a tenth of all reads so a slow Data Store is not
+ * answered with double the load.
+ */
+final class HedgedReads {
+	// The hedge threshold is recomputed from the window after this many reads
+	private static final int RECOMPUTE_EVERY = 16;
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+
+	private final Executor executor;
+	private final long timeoutNanos;
+	private final boolean hedge;
+	private final double percentile;
+	private final long minDelayNanos;
+	private final int minSamples;
+	private final LatencyWindow latency = new LatencyWindow(256);
+	private final AtomicLong reads = new AtomicLong();
+	private final AtomicLong hedged = new AtomicLong();
+	private final AtomicLong hedgeWins = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong answered = new AtomicLong();
+	// -1 until minSamples reads have been seen
+	private volatile long thresholdNanos = -1;
+
+	// A null executor keeps every read on the awaiting thread, with hedging off
+	HedgedReads(Executor executor, long timeoutMillis, boolean hedge, double percentile, long minDelayMillis, int minSamples) {
+		this.executor = executor;
+		this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		this.hedge = hedge && executor != null;
+		this.percentile = percentile;
+		this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+		this.minSamples = minSamples;
+	}
+
+	/**
+	 * One started read. Call await() at most once, on the thread that started it, and cancel()
+	 * when the result is no longer wanted; cancel() after await() does nothing.
+	 */
+	final class Read<T> {
+		private final Callable<T> query;
+		// Runs on the starting thread whenever an attempt is issued, so the caller can count it
+		private final Runnable onAttempt;
+		private final long submitNanos = System.nanoTime();
+		private final AtomicLong firstRunNanos = new AtomicLong(NOT_STARTED);
+		// null when the read runs on the awaiting thread
+		private final ExecutorCompletionService<T> race;
+		private final List<Future<T>> attempts = new ArrayList<Future<T>>(2);
+		private boolean finished;
+
+		private Read(Callable<T> query, Runnable onAttempt) {
+			this.query = query;
+			this.onAttempt = onAttempt;
+			reads.incrementAndGet();
+			if (hedge) {
+				race = new ExecutorCompletionService<T>(executor);
+				submit();
+			} else {
+				race = null;
+			}
+		}
+
+		private void submit() {
+			onAttempt.run();
+			attempts.add(race.submit(() -> {
+				firstRunNanos.compareAndSet(NOT_STARTED, System.nanoTime());
+				return query.call();
+			}));
+		}
+
+		T await() throws Exception {
+			if (finished) throw new IllegalStateException("Read already awaited or cancelled");
+			finished = true;
+			if (race == null) {
+				onAttempt.run();
+				return query.call();
+			}
+
+			int pending = 1;
+			try {
+				while (true) {
+					long now = System.nanoTime();
+					long started = firstRunNanos.get();
+					long wait;
+					if (started == NOT_STARTED) {
+						// Still queued: re-check for the start now and then, up to a whole deadline
+						wait = Math.min(submitNanos + timeoutNanos - now, minDelayNanos);
+					} else {
+						wait = started + timeoutNanos - now;
+						if (attempts.size() == 1 && hedgeAllowed()) wait = Math.min(wait, started + thresholdNanos - now);
+					}
+					Future<T> done = wait > 0 ? race.poll(wait, TimeUnit.NANOSECONDS) : race.poll();
+					if (done == null) {
+						now = System.nanoTime();
+						started = firstRunNanos.get();
+						if (started == NOT_STARTED) {
+							if (now - (submitNanos + timeoutNanos) < 0) continue;
+							timeouts.incrementAndGet();
+							throw new TimeoutException("Data Store read waited " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos)
+								+ " ms for a thread");
+						}
+						if (now - (started + timeoutNanos) >= 0) {
+							timeouts.incrementAndGet();
+							throw new TimeoutException("Data Store read timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+						}
+						if (attempts.size() == 1 && hedgeAllowed() && now - (started + thresholdNanos) >= 0) {
+							hedged.incrementAndGet();
+							submit();
+							pending++;
+						}
+						continue;
+					}
+					pending--;
+					try {
+						T result = done.get();
+						if (done != attempts.get(0)) hedgeWins.incrementAndGet();
+						record(System.nanoTime() - firstRunNanos.get());
+						return result;
+					} catch (ExecutionException e) {
+						// Errors are not retried; a failed attempt only defers to one still running
+						if (pending > 0) continue;
+						Throwable cause = e.getCause();
+						throw cause instanceof Exception ? (Exception) cause : e;
+					}
+				}
+			} finally {
+				for (Future<T> attempt : attempts) attempt.cancel(true);
+			}
+		}
+
+		// Stops a read that will not be awaited: queued or running attempts are cancelled, and an
+		// unpooled read never runs
+		void cancel() {
+			if (finished) return;
+			finished = true;
+			for (Future<T> attempt : attempts) attempt.cancel(true);
+		}
+	}
+
+	<T> Read<T> start(Callable<T> query, Runnable onAttempt) {
+		return new Read<T>(query, onAttempt);
+	}
+
+	boolean hedging() {
+		return hedge;
+	}
+
+	long timeoutMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+	}
+
+	// Current hedge delay in milliseconds, or -1 while hedging is off or still learning
+	long hedgeAfterMillis() {
+		long threshold = thresholdNanos;
+		return hedge && threshold >= 0 ? TimeUnit.NANOSECONDS.toMillis(threshold) : -1;
+	}
+
+	long reads() {
+		return reads.get();
+	}
+
+	long hedged() {
+		return hedged.get();
+	}
+
+	long hedgeWins() {
+		return hedgeWins.get();
+	}
+
+	long timeouts() {
+		return timeouts.get();
+	}
+
+	private boolean hedgeAllowed() {
+		return hedge && thresholdNanos >= 0 && hedged.get() * 10 < reads.get();
+	}
+
+	private void record(long nanos) {
+		latency.record(nanos);
+		if (answered.incrementAndGet() % RECOMPUTE_EVERY == 0 && latency.size() >= minSamples) {
+			thresholdNanos = Math.max(minDelayNanos, latency.percentile(percentile));
+		}
+	}
+}
@@ -0,0 +1,149 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Bounded, expiring store of responses keyed by user and Idempotency-Key.
+ * A key is reserved before the handler runs so a concurrent retry sees it as in flight
+ * instead of writing a second row; only 2xx responses are kept for replay.
+ */
+final class IdempotencyCache {
+	static final class Entry {
+		final String request;
+		final long expiresAt;
+		// null while the first request is still running
+		volatile byte[] body;
+		volatile int status;
+		volatile String contentType;
+
+		Entry(String request, long expiresAt) {
+			this.request = request;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final long ttlMillis;
+	private final LinkedHashMap<String, Entry> entries;
+
+	IdempotencyCache(final int maxEntries, long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the existing live entry for the key, or reserves the key for this request and
+	 * returns null. request identifies the method and path so a reused key can be rejected.
+	 */
+	synchronized Entry reserve(String key, String request) {
+		long now = System.currentTimeMillis();
+		Entry existing = entries.get(key);
+		if (existing != null && existing.expiresAt > now) return existing;
+		entries.put(key, new Entry(request, now + ttlMillis));
+		return null;
+	}
+
+	synchronized void complete(String key, int status, String contentType, byte[] body) {
+		Entry entry = entries.get(key);
+		if (entry == null) return;
+		if (status < 200 || status >= 300) {
+			// Failures are not replayed; the client may retry the write
+			entries.remove(key);
+			return;
+		}
+		entry.status = status;
+		entry.contentType = contentType;
+		entry.body = body;
+	}
+
+	synchronized void release(String key) {
+		entries.remove(key);
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Response wrapper that keeps the body in memory so it can be stored and then copied to
+	 * the real response.
+	 */
+	static final class CapturingResponse extends HttpServletResponseWrapper {
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+		private ServletOutputStream stream;
+		private PrintWriter writer;
+		private int status = 200;
+
+		CapturingResponse(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			status = sc;
+			super.setStatus(sc);
+		}
+
+		@Override
+		public int getStatus() {
+			return status;
+		}
+
+		byte[] body() {
+			if (writer != null) writer.flush();
+			return buffer.toByteArray();
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			if (stream == null) {
+				stream = new ServletOutputStream() {
+					@Override
+					public void write(int b) {
+						buffer.write(b);
+					}
+
+					@Override
+					public void write(byte[] b, int off, int len) {
+						buffer.write(b, off, len);
+					}
+
+					@Override
+					public boolean isReady() {
+						return true;
+					}
+
+					@Override
+					public void setWriteListener(WriteListener listener) {
+					}
+				};
+			}
+			return stream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+			}
+			return writer;
+		}
+
+		@Override
+		public void flushBuffer() {
+			if (writer != null) writer.flush();
+		}
+	}
+}
@@ -0,0 +1,59 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local SharedCache, standing in for Catalyst Cache in local runs and tests.
+ * It behaves like the shared tier of a single instance: entries expire by TTL, and when full,
+ * expired entries are dropped first, then arbitrary ones.
+ */
+final class InMemorySharedCache implements SharedCache {
+	private static final class Entry {
+		final String value;
+		final long expiresAt;
+
+		Entry(String value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final int maxEntries;
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	InMemorySharedCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	@Override
+	public String get(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null) return null;
+		if (entry.expiresAt <= System.currentTimeMillis()) {
+			entries.remove(key, entry);
+			return null;
+		}
+		return entry.value;
+	}
+
+	@Override
+	public void put(String key, String value, long ttlSeconds) {
+		if (entries.size() >= maxEntries && !entries.containsKey(key)) evict();
+		entries.put(key, new Entry(value, System.currentTimeMillis() + ttlSeconds * 1000L));
+	}
+
+	@Override
+	public String name() {
+		return "memory";
+	}
+
+	private void evict() {
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(entry -> entry.expiresAt <= now);
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (entries.size() >= maxEntries && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * ResponseWriter backed by a Jackson JsonGenerator that encodes UTF-8 straight onto the
+ * servlet OutputStream, without an intermediate String for the whole payload.
+ */
+final class JacksonResponseWriter implements ResponseWriter {
+	private static final JsonFactory FACTORY = new JsonFactory()
+		.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	private static final SerializedString NDJSON_SEPARATOR = new SerializedString("\n");
+
+	private final JsonGenerator generator;
+
+	JacksonResponseWriter(OutputStream out) throws IOException {
+		generator = FACTORY.createGenerator(out, JsonEncoding.UTF8);
+		generator.setRootValueSeparator(NDJSON_SEPARATOR);
+	}
+
+	@Override
+	public ResponseWriter beginObject() throws IOException {
+		generator.writeStartObject();
+		return this;
+	}
+
+	@Override
+	public ResponseWriter endObject() throws IOException {
+		generator.writeEndObject();
+		return this;
+	}
+
+	@Override
+	public ResponseWriter beginArray() throws IOException {
+		generator.writeStartArray();
+		return this;
+	}
+
+	@Override
+	public ResponseWriter endArray() throws IOException {
+		generator.writeEndArray();
+		return this;
+	}
+
+	@Override
+	public ResponseWriter name(String name) throws IOException {
+		generator.writeFieldName(name);
+		return this;
+	}
+
+	@Override
+	public ResponseWriter value(String value) throws IOException {
+		if (value == null) {
+			generator.writeNull();
+		} else {
+			generator.writeString(value);
+		}
+		return this;
+	}
+
+	@Override
+	public ResponseWriter value(long value) throws IOException {
+		generator.writeNumber(value);
+		return this;
+	}
+
+	@Override
+	public ResponseWriter value(boolean value) throws IOException {
+		generator.writeBoolean(value);
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		generator.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		generator.close();
+	}
+}
@@ -0,0 +1,38 @@
+import java.util.Arrays;
+
+/**
+ * The most recent latency samples in a fixed ring, for rolling percentiles.
+ * Recording is one synchronized array store; a percentile copies and sorts the window, so
+ * reads are meant to be occasional.
+ */
+final class LatencyWindow {
+	private final long[] samples;
+	private int next;
+	private int size;
+
+	LatencyWindow(int capacity) {
+		this.samples = new long[Math.max(capacity, 1)];
+	}
+
+	synchronized void record(long nanos) {
+		samples[next] = nanos;
+		next = (next + 1) % samples.length;
+		if (size < samples.length) size++;
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	// Nanoseconds at quantile q (0..1) of the current window, or -1 while it is empty
+	long percentile(double q) {
+		long[] window;
+		synchronized (this) {
+			window = Arrays.copyOf(samples, size);
+		}
+		if (window.length == 0) return -1;
+		Arrays.sort(window);
+		int rank = (int) Math.ceil(q * window.length) - 1;
+		return window[Math.max(0, Math.min(window.length - 1, rank))];
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Open-addressing map from long keys to int counts, for per-request aggregation over ROWIDs.
+ * Keys and values live in two parallel primitive arrays with linear probing, so counting does
+ * not box. Key 0 marks an empty slot and is tracked separately. Not thread-safe.
+ */
+final class LongIntMap {
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+	private boolean hasZeroKey;
+	private int zeroValue;
+
+	LongIntMap(int expectedSize) {
+		// The smallest power of two holding expectedSize at most half full, so probe runs stay short
+		int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, MIN_CAPACITY) - 1) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	// Adds delta to the value of key, starting from 0 when absent
+	void add(long key, int delta) {
+		if (key == 0) {
+			if (!hasZeroKey) {
+				hasZeroKey = true;
+				size++;
+			}
+			zeroValue += delta;
+			return;
+		}
+		int slot = slot(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				values[slot] += delta;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = delta;
+		if (++size * 2 > keys.length) grow();
+	}
+
+	// The value of key, or 0 when absent
+	int get(long key) {
+		if (key == 0) return zeroValue;
+		int slot = slot(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) return values[slot];
+			slot = (slot + 1) & mask;
+		}
+		return 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private int slot(long key) {
+		// ROWIDs share their high bits, so the key is mixed before masking (the MurmurHash3 finalizer)
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return (int) h & mask;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if (key == 0) continue;
+			int slot = slot(key);
+			while (keys[slot] != 0) slot = (slot + 1) & mask;
+			keys[slot] = key;
+			values[slot] = oldValues[i];
+		}
+	}
+}
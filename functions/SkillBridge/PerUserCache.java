@@ -0,0 +1,106 @@
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small in-process cache of computed results, grouped by user so that one write drops
+ * everything cached for its author. Users are evicted least recently used, and entries also
+ * expire after ttlMillis to bound staleness from writes served by other instances.
+ * A reader takes generation() before computing and passes it to put(), so a result computed
+ * across an invalidate() is discarded instead of cached.
+ */
+final class PerUserCache<V> {
+	private static final class Entry<V> {
+		final V value;
+		final long expiresAt;
+
+		Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private static final class Slot<V> {
+		long generation;
+		final HashMap<String, Entry<V>> entries = new HashMap<String, Entry<V>>();
+	}
+
+	private final long ttlMillis;
+	private final int maxKeysPerUser;
+	private final LinkedHashMap<Long, Slot<V>> users;
+	// Carries generations across eviction, so an evicted user's in-flight put cannot go back in stale
+	private long evictedGeneration;
+
+	PerUserCache(final int maxUsers, int maxKeysPerUser, long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+		this.maxKeysPerUser = maxKeysPerUser;
+		this.users = new LinkedHashMap<Long, Slot<V>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Slot<V>> eldest) {
+				if (size() <= maxUsers) return false;
+				evictedGeneration = Math.max(evictedGeneration, eldest.getValue().generation);
+				return true;
+			}
+		};
+	}
+
+	synchronized V get(long userId, String key) {
+		Slot<V> slot = users.get(userId);
+		if (slot == null) return null;
+		Entry<V> entry = slot.entries.get(key);
+		if (entry == null) return null;
+		if (entry.expiresAt <= System.currentTimeMillis()) {
+			slot.entries.remove(key);
+			return null;
+		}
+		return entry.value;
+	}
+
+	synchronized long generation(long userId) {
+		return slot(userId).generation;
+	}
+
+	// Stores value unless the user's cache was invalidated since generation was read
+	synchronized void put(long userId, String key, long generation, V value) {
+		Slot<V> slot = slot(userId);
+		if (slot.generation != generation) return;
+		// A user's keys are few (one per parameter combination), so overflowing simply starts over
+		if (!slot.entries.containsKey(key) && slot.entries.size() >= maxKeysPerUser) slot.entries.clear();
+		slot.entries.put(key, new Entry<V>(value, System.currentTimeMillis() + ttlMillis));
+	}
+
+	/**
+	 * Advances the user's generation like invalidate(), so in-flight puts are refused, but keeps
+	 * the entries. Returns the live value under key, or null, for a caller that keeps its value
+	 * current in place; the value must then guard its own state.
+	 */
+	synchronized V change(long userId, String key) {
+		Slot<V> slot = slot(userId);
+		slot.generation++;
+		Entry<V> entry = slot.entries.get(key);
+		return entry != null && entry.expiresAt > System.currentTimeMillis() ? entry.value : null;
+	}
+
+	synchronized void invalidate(long userId) {
+		Slot<V> slot = slot(userId);
+		slot.generation++;
+		slot.entries.clear();
+	}
+
+	synchronized int size() {
+		int n = 0;
+		for (Slot<V> slot : users.values()) n += slot.entries.size();
+		return n;
+	}
+
+	private Slot<V> slot(long userId) {
+		Slot<V> slot = users.get(userId);
+		if (slot == null) {
+			slot = new Slot<V>();
+			// A recreated slot starts past every evicted generation, so a put begun before eviction is refused
+			slot.generation = ++evictedGeneration;
+			users.put(userId, slot);
+		}
+		return slot;
+	}
+}
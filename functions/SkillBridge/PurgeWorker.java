@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.zc.component.object.ZCRowObject;
+import com.zc.component.object.ZCTable;
+
+/**
+ * Background purge of soft-deleted learnings.
+ * Children are removed in bounded SELECT + deleteRows batches, then the tombstoned Learning
+ * row itself. Failed purges are retried with exponential backoff; progress is kept per id
+ * so the status route can report it. Every call goes through DataStore, and each attempt is
+ * tracked by the query budget as the route "PURGE /api/learning/{id}".
+ */
+final class PurgeWorker {
+	private static final Logger LOGGER = Logger.getLogger(PurgeWorker.class.getName());
+
+	// Finished entries are pruned once this many ids are tracked
+	private static final int MAX_TRACKED = 1000;
+
+	enum State { QUEUED, RUNNING, DONE, FAILED }
+
+	static final class Status {
+		volatile State state = State.QUEUED;
+		volatile int attempts;
+		volatile long childrenDeleted;
+		volatile String error;
+		volatile long finishedAt;
+	}
+
+	private final String learningTable;
+	private final String childTable;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final long backoffMillis;
+	private final ZcqlTemplate childBatch;
+	private final QueryBudget budget;
+	private final ConcurrentHashMap<Long, Status> statuses = new ConcurrentHashMap<Long, Status>();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "skillbridge-purge");
+		t.setDaemon(true);
+		return t;
+	});
+
+	PurgeWorker(String learningTable, String childTable, int batchSize, int maxAttempts, long backoffMillis, QueryBudget budget) {
+		this.learningTable = learningTable;
+		this.childTable = childTable;
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		this.backoffMillis = backoffMillis;
+		this.childBatch = ZcqlTemplate.compileBatched("purge.childBatch",
+			"SELECT ROWID FROM " + childTable + " WHERE learning_id = {long} LIMIT " + batchSize);
+		this.budget = budget;
+	}
+
+	// Called on the request thread; the purge runs under that request's credentials
+	Status enqueue(long learningId) {
+		prune();
+		Status status = new Status();
+		Status existing = statuses.putIfAbsent(learningId, status);
+		if (existing != null && existing.state != State.FAILED) return existing;
+		if (existing != null) statuses.put(learningId, status);
+		CatalystContext context = CatalystContext.capture();
+		executor.execute(() -> run(learningId, status, context));
+		return status;
+	}
+
+	// null when this instance has not seen the id
+	Status status(long learningId) {
+		return statuses.get(learningId);
+	}
+
+	private void run(long learningId, Status status, CatalystContext context) {
+		status.state = State.RUNNING;
+		status.attempts++;
+		try {
+			context.call(() -> {
+				budget.begin("PURGE", "/api/learning/" + learningId);
+				try {
+					purge(learningId, status);
+				} finally {
+					budget.end();
+				}
+				return null;
+			});
+			status.error = null;
+			status.state = State.DONE;
+			status.finishedAt = System.currentTimeMillis();
+		} catch (Exception e) {
+			status.error = e.getMessage();
+			if (status.attempts < maxAttempts) {
+				long delay = backoffMillis << Math.min(status.attempts - 1, 10);
+				LOGGER.log(Level.WARNING, "Purge of learning " + learningId + " failed (attempt " + status.attempts
+					+ "), retrying in " + delay + " ms: " + e.getMessage());
+				status.state = State.QUEUED;
+				executor.schedule(() -> run(learningId, status, context), delay, TimeUnit.MILLISECONDS);
+			} else {
+				LOGGER.log(Level.SEVERE, "Purge of learning " + learningId + " gave up after " + status.attempts + " attempts", e);
+				status.state = State.FAILED;
+				status.finishedAt = System.currentTimeMillis();
+			}
+		}
+	}
+
+	// A full batch is followed by another SELECT and deleteRows, which the budget counts as continuations
+	private void purge(long learningId, Status status) throws Exception {
+		ZCTable children = table(childTable);
+		while (true) {
+			QueryBudget.Call select = budget.record(childBatch.id, true);
+			ArrayList<ZCRowObject> rows = childBatch.bind().bind(learningId).query().execute();
+			if (rows == null || rows.isEmpty()) break;
+			boolean full = rows.size() >= batchSize;
+			if (full) select.more();
+			ArrayList<Long> ids = new ArrayList<Long>(rows.size());
+			for (ZCRowObject row : rows) {
+				Object id = row.get(childTable, "ROWID");
+				if (id != null) ids.add(Long.parseLong(String.valueOf(id)));
+			}
+			QueryBudget.Call delete = budget.record("deleteRows." + childTable, true);
+			if (full) delete.more();
+			children.deleteRows(ids);
+			status.childrenDeleted += ids.size();
+			if (!full) break;
+		}
+		ZCTable learnings = table(learningTable);
+		budget.record("deleteRow." + learningTable, false);
+		learnings.deleteRow(learningId);
+	}
+
+	// One lookup per table and attempt; the handle is reused across batches
+	private ZCTable table(String name) throws Exception {
+		budget.record("table." + name, false);
+		return DataStore.get().table(name);
+	}
+
+	private void prune() {
+		if (statuses.size() < MAX_TRACKED) return;
+		Iterator<Map.Entry<Long, Status>> it = statuses.entrySet().iterator();
+		while (it.hasNext() && statuses.size() >= MAX_TRACKED / 2) {
+			Status s = it.next().getValue();
+			if (s.finishedAt > 0) it.remove();
+		}
+	}
+}
@@ -0,0 +1,192 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Development and test guard against Data Store calls creeping into loops.
+ * Each request on the request thread records the shape of every call it makes (a ZCQL template
+ * id, or a table operation); a background purge attempt is tracked the same way on its worker. Two things count as a violation: more calls than the route's
+ * budget, and one shape issued more than repeatLimit times, which is what an N+1 regression
+ * looks like. A call of a batched shape (keyset pages, chunked IN statements, batch inserts) is
+ * exempt from both only when it continues the previous call of that shape, which the caller
+ * marked with Call.more(): a full page, or chunks still to go. So paging grows with the data,
+ * while a loop over a batched template that returns short pages is still caught.
+ * In "log" mode a violating request is logged at SEVERE when it ends. In "fail" mode the call
+ * that crosses the line throws Exceeded, so the handler answers 500 and tests fail. "off" costs
+ * one field read per call.
+ */
+final class QueryBudget {
+	private static final Logger LOGGER = Logger.getLogger(QueryBudget.class.getName());
+
+	enum Mode { OFF, LOG, FAIL }
+
+	static final class Exceeded extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		Exceeded(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * One recorded call. The caller marks it with more() when another call of the same batched
+	 * shape follows by design; may be marked from the thread that ran the call.
+	 */
+	static final class Call {
+		private volatile boolean more;
+
+		void more() {
+			more = true;
+		}
+	}
+
+	// Returned for calls that are not tracked; marking it has no effect
+	private static final Call UNTRACKED = new Call();
+
+	private static final class Shape {
+		int calls;
+		int counted;
+		Call last;
+	}
+
+	private static final class Tracker {
+		final String route;
+		final int budget;
+		int counted;
+		int continued;
+		final HashMap<String, Shape> shapes = new HashMap<String, Shape>();
+		String violation;
+
+		Tracker(String route, int budget) {
+			this.route = route;
+			this.budget = budget;
+		}
+	}
+
+	private final Mode mode;
+	private final int repeatLimit;
+	// "METHOD /path" with numeric segments as {id} -> most counted calls; routes not listed have no budget
+	private final Map<String, Integer> budgets;
+	private final ThreadLocal<Tracker> current = new ThreadLocal<Tracker>();
+	private final AtomicLong violations = new AtomicLong();
+
+	QueryBudget(Mode mode, int repeatLimit, Map<String, Integer> budgets) {
+		this.mode = mode;
+		this.repeatLimit = repeatLimit;
+		this.budgets = budgets;
+	}
+
+	static Mode mode(String value) {
+		if ("log".equalsIgnoreCase(value)) return Mode.LOG;
+		if ("fail".equalsIgnoreCase(value)) return Mode.FAIL;
+		return Mode.OFF;
+	}
+
+	// Parses "GET /api/learning=2,POST /api/learning=4" over defaults; invalid entries are skipped
+	static Map<String, Integer> budgets(Map<String, Integer> defaults, String overrides) {
+		Map<String, Integer> budgets = new HashMap<String, Integer>(defaults);
+		for (String entry : overrides.split(",")) {
+			int eq = entry.lastIndexOf('=');
+			if (eq <= 0) continue;
+			try {
+				budgets.put(entry.substring(0, eq).trim(), Integer.parseInt(entry.substring(eq + 1).trim()));
+			} catch (NumberFormatException e) {
+				LOGGER.log(Level.WARNING, "Ignoring invalid query budget " + entry.trim());
+			}
+		}
+		return budgets;
+	}
+
+	// Route key for budgets: numeric path segments become {id}
+	static String route(String method, String uri) {
+		StringBuilder out = new StringBuilder(method.length() + uri.length() + 1).append(method).append(' ');
+		int start = 0;
+		while (start < uri.length()) {
+			int end = uri.indexOf('/', start + 1);
+			if (end < 0) end = uri.length();
+			String segment = uri.substring(start, end);
+			boolean numeric = segment.length() > 1;
+			for (int i = 1; i < segment.length() && numeric; i++) {
+				numeric = Character.isDigit(segment.charAt(i));
+			}
+			out.append(numeric ? "/{id}" : segment);
+			start = end;
+		}
+		return out.toString();
+	}
+
+	Mode mode() {
+		return mode;
+	}
+
+	long violations() {
+		return violations.get();
+	}
+
+	// Starts tracking the calling thread's request, or a background job under a route of its own
+	void begin(String method, String uri) {
+		if (mode == Mode.OFF) return;
+		String route = route(method, uri);
+		Integer budget = budgets.get(route);
+		current.set(new Tracker(route, budget != null ? budget : -1));
+	}
+
+	/**
+	 * Records one Data Store call of the given shape made by the current request. Calls on
+	 * threads with nothing begun (admin report partitions) are not tracked.
+	 */
+	Call record(String shape, boolean batched) {
+		if (mode == Mode.OFF) return UNTRACKED;
+		Tracker tracker = current.get();
+		if (tracker == null) return UNTRACKED;
+		Shape calls = tracker.shapes.get(shape);
+		if (calls == null) {
+			calls = new Shape();
+			tracker.shapes.put(shape, calls);
+		}
+		boolean continues = batched && calls.last != null && calls.last.more;
+		Call call = new Call();
+		calls.last = call;
+		calls.calls++;
+		if (continues) {
+			tracker.continued++;
+			return call;
+		}
+		calls.counted++;
+		tracker.counted++;
+		String violation = null;
+		if (tracker.budget >= 0 && tracker.counted > tracker.budget) {
+			violation = "query budget of " + tracker.budget + " exceeded by " + tracker.route;
+		} else if (calls.counted > repeatLimit) {
+			violation = shape + " issued " + calls.counted + " times by " + tracker.route + " (likely N+1)";
+		}
+		if (violation == null || tracker.violation != null) return call;
+		tracker.violation = violation;
+		violations.incrementAndGet();
+		if (mode == Mode.FAIL) throw new Exceeded(violation + "; " + describe(tracker));
+		return call;
+	}
+
+	// Ends tracking; in log mode a violating request is reported with every shape it used
+	void end() {
+		if (mode == Mode.OFF) return;
+		Tracker tracker = current.get();
+		current.remove();
+		if (tracker == null || tracker.violation == null || mode != Mode.LOG) return;
+		LOGGER.log(Level.SEVERE, "Query budget violation: " + tracker.violation + "; " + describe(tracker));
+	}
+
+	private static String describe(Tracker tracker) {
+		StringBuilder out = new StringBuilder()
+			.append(tracker.counted).append(" counted and ").append(tracker.continued).append(" continued calls {");
+		boolean first = true;
+		for (Map.Entry<String, Shape> shape : tracker.shapes.entrySet()) {
+			if (!first) out.append(", ");
+			out.append(shape.getKey()).append('=').append(shape.getValue().calls);
+			first = false;
+		}
+		return out.append('}').toString();
+	}
+}
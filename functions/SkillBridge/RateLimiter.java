@@ -0,0 +1,92 @@
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user token buckets with separate read and write budgets.
+ * Each bucket is a single AtomicLong holding its theoretical arrival time (GCRA), so taking
+ * tokens is one CAS and never blocks. Costlier routes take more tokens per call.
+ */
+final class RateLimiter {
+	private static final int READ = 0;
+	private static final int WRITE = 1;
+
+	// Idle buckets are dropped once this many users are tracked; an idle bucket is full anyway
+	private static final int MAX_USERS = 50000;
+
+	private final long[] intervalNanos = new long[2];
+	private final long[] burstNanos = new long[2];
+	private final ConcurrentHashMap<Long, AtomicLong[]> buckets = new ConcurrentHashMap<Long, AtomicLong[]>();
+	private final AtomicLong[] allowed = { new AtomicLong(), new AtomicLong() };
+	private final AtomicLong[] throttled = { new AtomicLong(), new AtomicLong() };
+
+	RateLimiter(int readsPerMinute, int readBurst, int writesPerMinute, int writeBurst) {
+		intervalNanos[READ] = 60_000_000_000L / Math.max(readsPerMinute, 1);
+		burstNanos[READ] = intervalNanos[READ] * Math.max(readBurst, 1);
+		intervalNanos[WRITE] = 60_000_000_000L / Math.max(writesPerMinute, 1);
+		burstNanos[WRITE] = intervalNanos[WRITE] * Math.max(writeBurst, 1);
+	}
+
+	/**
+	 * Takes cost tokens from the user's read or write bucket.
+	 * Returns 0 when admitted, otherwise the seconds until the request would fit.
+	 */
+	long acquire(long userId, boolean write, int cost) {
+		int kind = write ? WRITE : READ;
+		AtomicLong[] pair = buckets.get(userId);
+		if (pair == null) {
+			if (buckets.size() >= MAX_USERS) evictIdle();
+			AtomicLong[] fresh = { new AtomicLong(Long.MIN_VALUE), new AtomicLong(Long.MIN_VALUE) };
+			pair = buckets.putIfAbsent(userId, fresh);
+			if (pair == null) pair = fresh;
+		}
+		AtomicLong bucket = pair[kind];
+		long now = System.nanoTime();
+		// A cost above the burst could never be admitted, so it is capped at a full bucket
+		long increment = Math.min(intervalNanos[kind] * cost, burstNanos[kind]);
+		while (true) {
+			long tat = bucket.get();
+			long start = isIdle(tat, now) ? now : tat;
+			long next = start + increment;
+			long wait = next - burstNanos[kind] - now;
+			if (wait > 0) {
+				throttled[kind].incrementAndGet();
+				return Math.max(1L, (wait + 999_999_999L) / 1_000_000_000L);
+			}
+			if (bucket.compareAndSet(tat, next)) {
+				allowed[kind].incrementAndGet();
+				return 0;
+			}
+		}
+	}
+
+	long allowedReads() {
+		return allowed[READ].get();
+	}
+
+	long throttledReads() {
+		return throttled[READ].get();
+	}
+
+	long allowedWrites() {
+		return allowed[WRITE].get();
+	}
+
+	long throttledWrites() {
+		return throttled[WRITE].get();
+	}
+
+	private void evictIdle() {
+		long now = System.nanoTime();
+		Iterator<AtomicLong[]> it = buckets.values().iterator();
+		while (it.hasNext()) {
+			AtomicLong[] pair = it.next();
+			if (isIdle(pair[READ].get(), now) && isIdle(pair[WRITE].get(), now)) it.remove();
+		}
+	}
+
+	// nanoTime may be negative, so arrival times are compared by difference
+	private static boolean isIdle(long tat, long now) {
+		return tat == Long.MIN_VALUE || tat - now < 0;
+	}
+}
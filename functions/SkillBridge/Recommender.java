@@ -0,0 +1,202 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the k pending learnings most worth applying next, in one pass over the learnings.
+ * A score is a weighted sum of three parts in [0, 1]: age (older first), category balance
+ * (categories the user has applied least, by share of applied learnings) and source affinity
+ * (word overlap with the sources of recent applications). Recent sources are added before the
+ * pass; category balance is only known once every learning has been seen, but it is the same
+ * for a whole category, so each category keeps its own bounded heap on the other two parts and
+ * the heaps are merged in finish(). Memory is O(k x categories) however many learnings there are.
+ */
+final class Recommender {
+	static final int MAX_K = 50;
+
+	private static final double AGE_WEIGHT = 0.5;
+	private static final double BALANCE_WEIGHT = 0.3;
+	private static final double AFFINITY_WEIGHT = 0.2;
+	// A learning this many days old scores half of the age weight
+	private static final double AGE_HALF_DAYS = 14.0;
+	private static final HashSet<String> SOURCE_NOISE = new HashSet<String>(Arrays.asList(
+		"http", "https", "www", "com", "org", "net", "html", "the", "and", "for"));
+
+	private static final class Candidate {
+		final long id;
+		final String topic;
+		final String category;
+		final String source;
+		final String createdTime;
+		final double age;
+		final double affinity;
+		final double partial;
+		double balance;
+		double score;
+
+		Candidate(long id, String topic, String category, String source, String createdTime, double age, double affinity) {
+			this.id = id;
+			this.topic = topic;
+			this.category = category;
+			this.source = source;
+			this.createdTime = createdTime;
+			this.age = age;
+			this.affinity = affinity;
+			this.partial = AGE_WEIGHT * age + AFFINITY_WEIGHT * affinity;
+		}
+	}
+
+	// Worst first, so the heap head is the one to drop; on a tie the newer learning goes
+	private static final Comparator<Candidate> BY_PARTIAL = (a, b) -> a.partial != b.partial
+		? Double.compare(a.partial, b.partial)
+		: Long.compare(b.id, a.id);
+	private static final Comparator<Candidate> BY_SCORE = (a, b) -> a.score != b.score
+		? Double.compare(a.score, b.score)
+		: Long.compare(b.id, a.id);
+
+	private final int k;
+	private final long now;
+	private final List<HashSet<String>> recentSources = new ArrayList<HashSet<String>>();
+	// Normalized category -> best pending learnings by age and affinity
+	private final HashMap<String, PriorityQueue<Candidate>> pendingByCategory = new HashMap<String, PriorityQueue<Candidate>>();
+	// Normalized category -> applied learnings
+	private final HashMap<String, int[]> appliedByCategory = new HashMap<String, int[]>();
+	private int applied;
+	private int pending;
+	private List<Candidate> picked;
+
+	Recommender(int k, long now) {
+		this.k = k;
+		this.now = now;
+	}
+
+	// Source of a recently applied learning; call before any learning is added
+	void addRecentSource(String source) {
+		HashSet<String> words = words(source);
+		if (!words.isEmpty()) recentSources.add(words);
+	}
+
+	void addApplied(String category) {
+		String key = DuplicateIndex.normalize(category);
+		int[] count = appliedByCategory.get(key);
+		if (count == null) {
+			count = new int[1];
+			appliedByCategory.put(key, count);
+		}
+		count[0]++;
+		applied++;
+	}
+
+	// CREATEDTIME as Catalyst formats it; an unreadable time counts as brand new
+	void addPending(long id, String topic, String category, String source, String createdTime) {
+		pending++;
+		LocalDateTime created = Timeline.parse(createdTime);
+		double days = created != null
+			? Math.max(0, now - created.toInstant(ZoneOffset.UTC).toEpochMilli()) / 86_400_000.0
+			: 0;
+		Candidate candidate = new Candidate(id, topic, category, source, createdTime, days / (days + AGE_HALF_DAYS), affinity(source));
+
+		String key = DuplicateIndex.normalize(category);
+		PriorityQueue<Candidate> heap = pendingByCategory.get(key);
+		if (heap == null) {
+			heap = new PriorityQueue<Candidate>(Math.min(k, 16) + 1, BY_PARTIAL);
+			pendingByCategory.put(key, heap);
+		}
+		if (heap.size() < k) {
+			heap.add(candidate);
+		} else if (BY_PARTIAL.compare(candidate, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(candidate);
+		}
+	}
+
+	Recommender finish() {
+		PriorityQueue<Candidate> best = new PriorityQueue<Candidate>(k + 1, BY_SCORE);
+		for (Map.Entry<String, PriorityQueue<Candidate>> entry : pendingByCategory.entrySet()) {
+			int[] count = appliedByCategory.get(entry.getKey());
+			double balance = applied > 0 ? 1.0 - (count != null ? count[0] : 0) / (double) applied : 1.0;
+			for (Candidate candidate : entry.getValue()) {
+				candidate.balance = balance;
+				candidate.score = candidate.partial + BALANCE_WEIGHT * balance;
+				best.add(candidate);
+				if (best.size() > k) best.poll();
+			}
+		}
+		picked = new ArrayList<Candidate>(best);
+		Collections.sort(picked, BY_SCORE.reversed());
+		pendingByCategory.clear();
+		return this;
+	}
+
+	/**
+	 * Writes { k, pending, items: [{ id, topic, category, source, createdTime, score,
+	 * reasons: { age, categoryBalance, sourceAffinity } }] }, best first. Scores and reasons are
+	 * percentages of their part's full value.
+	 */
+	void write(ResponseWriter out) throws Exception {
+		out.beginObject()
+			.field("k", k)
+			.field("pending", pending);
+		out.name("items").beginArray();
+		for (Candidate c : picked) {
+			out.beginObject()
+				.field("id", String.valueOf(c.id))
+				.field("topic", c.topic)
+				.field("category", c.category)
+				.field("source", c.source)
+				.field("createdTime", c.createdTime)
+				.field("score", Math.round(c.score * 100));
+			out.name("reasons").beginObject()
+				.field("age", Math.round(c.age * 100))
+				.field("categoryBalance", Math.round(c.balance * 100))
+				.field("sourceAffinity", Math.round(c.affinity * 100))
+				.endObject();
+			out.endObject();
+		}
+		out.endArray();
+		out.endObject();
+	}
+
+	// Best Jaccard overlap between the source's words and any recent source's
+	private double affinity(String source) {
+		if (recentSources.isEmpty()) return 0;
+		HashSet<String> words = words(source);
+		if (words.isEmpty()) return 0;
+		double best = 0;
+		for (HashSet<String> recent : recentSources) {
+			int shared = 0;
+			for (String word : words) {
+				if (recent.contains(word)) shared++;
+			}
+			best = Math.max(best, shared / (double) (words.size() + recent.size() - shared));
+		}
+		return best;
+	}
+
+	// Letters and digits runs of three or more, without URL and filler words
+	private static HashSet<String> words(String source) {
+		HashSet<String> words = new HashSet<String>();
+		String text = DuplicateIndex.normalize(source);
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (word && start < 0) start = i;
+			if (!word && start >= 0) {
+				if (i - start >= 3) {
+					String w = text.substring(start, i);
+					if (!SOURCE_NOISE.contains(w)) words.add(w);
+				}
+				start = -1;
+			}
+		}
+		return words;
+	}
+}
@@ -0,0 +1,196 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Two-tier cache of JSON response bodies per user: a small in-process L1 in front of a
+ * SharedCache L2 that all instances see.
+ * Each user (CREATORID) has a version token kept in L2, and every cached body is keyed by it.
+ * A write stores a fresh token, which makes every body cached under the old one unreachable on
+ * all instances without deleting anything; old entries simply expire. An instance trusts its
+ * copy of a version for versionTtlMillis, which bounds how stale another instance's write can
+ * leave it.
+ */
+final class ResponseCache {
+	private static final Logger LOGGER = Logger.getLogger(ResponseCache.class.getName());
+
+	private static final class Entry {
+		final String body;
+		final long expiresAt;
+
+		Entry(String body, long expiresAt) {
+			this.body = body;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final SharedCache shared;
+	private final long ttlSeconds;
+	private final long versionTtlMillis;
+	private final int maxSharedChars;
+	private final LinkedHashMap<String, Entry> local;
+	// User id -> version token; expiresAt is when the token is next read from L2
+	private final LinkedHashMap<Long, Entry> versions;
+	private final AtomicLong localHits = new AtomicLong();
+	private final AtomicLong sharedHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong sharedErrors = new AtomicLong();
+
+	ResponseCache(SharedCache shared, final int maxLocalEntries, long ttlSeconds, long versionTtlMillis, int maxSharedChars) {
+		this.shared = shared;
+		this.ttlSeconds = ttlSeconds;
+		this.versionTtlMillis = versionTtlMillis;
+		this.maxSharedChars = maxSharedChars;
+		this.local = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxLocalEntries;
+			}
+		};
+		this.versions = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+				return size() > maxLocalEntries;
+			}
+		};
+	}
+
+	/**
+	 * The user's current version token, creating one when L2 has none. Returns null when L2
+	 * cannot be read, in which case the caller should bypass the cache.
+	 */
+	String version(long userId) {
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			Entry known = versions.get(userId);
+			if (known != null && known.expiresAt > now) return known.body;
+		}
+		String token;
+		try {
+			token = shared.get(versionKey(userId));
+		} catch (Exception e) {
+			// Some backends report a missing key as an error; a fresh token below is safe either way
+			token = null;
+		}
+		// A missing version (never set, or expired) is replaced rather than assumed, so old bodies stay unreachable
+		if (token == null || token.isEmpty()) {
+			token = newToken();
+			try {
+				shared.put(versionKey(userId), token, ttlSeconds);
+			} catch (Exception e) {
+				sharedError("version write", e);
+				return null;
+			}
+		}
+		synchronized (this) {
+			// A bump on this instance while L2 was being read is newer than what was read
+			Entry known = versions.get(userId);
+			if (known != null && known.expiresAt >= now + versionTtlMillis) return known.body;
+			versions.put(userId, new Entry(token, now + versionTtlMillis));
+		}
+		return token;
+	}
+
+	// Gives the user a new version after a write; bodies cached under the old one are never served again
+	void bump(long userId) {
+		String token = newToken();
+		synchronized (this) {
+			versions.put(userId, new Entry(token, System.currentTimeMillis() + versionTtlMillis));
+		}
+		try {
+			shared.put(versionKey(userId), token, ttlSeconds);
+		} catch (Exception e) {
+			// This instance still moved on; others catch up when the old version's entries expire
+			sharedError("version bump", e);
+		}
+	}
+
+	// The cached body for route under version, or null
+	String get(long userId, String version, String route) {
+		String key = dataKey(userId, version, route);
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			Entry entry = local.get(key);
+			if (entry != null && entry.expiresAt > now) {
+				localHits.incrementAndGet();
+				return entry.body;
+			}
+		}
+		try {
+			String stored = shared.get(key);
+			// L2 keys hash the route, so the stored value starts with the full route to rule out a collision
+			if (stored != null && stored.length() > route.length() && stored.startsWith(route)
+					&& stored.charAt(route.length()) == '\n') {
+				String body = stored.substring(route.length() + 1);
+				synchronized (this) {
+					local.put(key, new Entry(body, now + ttlSeconds * 1000L));
+				}
+				sharedHits.incrementAndGet();
+				return body;
+			}
+		} catch (Exception e) {
+			// As with versions, a missing key may surface as an error, so reads fail quietly as misses
+			LOGGER.log(Level.FINE, "Shared cache read failed: " + e.getMessage());
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	void put(long userId, String version, String route, String body) {
+		String key = dataKey(userId, version, route);
+		synchronized (this) {
+			local.put(key, new Entry(body, System.currentTimeMillis() + ttlSeconds * 1000L));
+		}
+		if (body.length() > maxSharedChars) return;
+		try {
+			shared.put(key, route + "\n" + body, ttlSeconds);
+		} catch (Exception e) {
+			sharedError("write", e);
+		}
+	}
+
+	String sharedName() {
+		return shared.name();
+	}
+
+	synchronized int localSize() {
+		return local.size();
+	}
+
+	long localHits() {
+		return localHits.get();
+	}
+
+	long sharedHits() {
+		return sharedHits.get();
+	}
+
+	long misses() {
+		return misses.get();
+	}
+
+	long sharedErrors() {
+		return sharedErrors.get();
+	}
+
+	private void sharedError(String operation, Exception e) {
+		sharedErrors.incrementAndGet();
+		LOGGER.log(Level.WARNING, "Shared cache " + operation + " failed: " + e.getMessage());
+	}
+
+	private static String versionKey(long userId) {
+		return "sbv" + userId;
+	}
+
+	// Short enough for cache key limits: user id, version token and a 64-bit hash of the route
+	private static String dataKey(long userId, String version, String route) {
+		return "sb" + userId + "." + version + "." + Long.toString(Fnv1a.hash(route) & Long.MAX_VALUE, 36);
+	}
+
+	private static String newToken() {
+		return Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+	}
+}
@@ -0,0 +1,43 @@
+import java.io.IOException;
+
+/**
+ * Streaming JSON output used by every SkillBridge handler.
+ * Several top-level values may be written one after another; they are separated
+ * by '\n' so the same writer produces NDJSON.
+ */
+interface ResponseWriter {
+	ResponseWriter beginObject() throws IOException;
+
+	ResponseWriter endObject() throws IOException;
+
+	ResponseWriter beginArray() throws IOException;
+
+	ResponseWriter endArray() throws IOException;
+
+	ResponseWriter name(String name) throws IOException;
+
+	// null is written as JSON null
+	ResponseWriter value(String value) throws IOException;
+
+	ResponseWriter value(long value) throws IOException;
+
+	ResponseWriter value(boolean value) throws IOException;
+
+	default ResponseWriter field(String name, String value) throws IOException {
+		return name(name).value(value);
+	}
+
+	default ResponseWriter field(String name, long value) throws IOException {
+		return name(name).value(value);
+	}
+
+	default ResponseWriter field(String name, boolean value) throws IOException {
+		return name(name).value(value);
+	}
+
+	// Pushes everything written so far to the client
+	void flush() throws IOException;
+
+	// Flushes; the underlying servlet stream is left open for the container
+	void close() throws IOException;
+}
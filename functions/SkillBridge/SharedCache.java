@@ -0,0 +1,15 @@
+/**
+ * A cache tier shared by every function instance: string values under short string keys, each
+ * with a time to live. Implementations may throw on any backend failure; callers treat that as
+ * a miss and keep serving from the Data Store.
+ */
+interface SharedCache {
+	// The stored value, or null when the key is absent or expired
+	String get(String key) throws Exception;
+
+	// Stores value under key, replacing any previous value
+	void put(String key, String value, long ttlSeconds) throws Exception;
+
+	// Reported by /api/_health
+	String name();
+}
@@ -1,7 +1,34 @@
 import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -9,13 +36,17 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.catalyst.advanced.CatalystAdvancedIOHandler;
+import com.zc.api.APIConstants;
+import com.zc.common.ZCProject;
 import com.zc.component.object.ZCObject;
 import com.zc.component.object.ZCTable;
 import com.zc.component.object.ZCRowObject;
+import com.zc.component.users.ZCUser;
 import com.zc.component.zcql.ZCQL;
 
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 public class SkillBridge implements CatalystAdvancedIOHandler {
 	private static final Logger LOGGER = Logger.getLogger(SkillBridge.class.getName());
@@ -23,360 +54,2467 @@ public class SkillBridge implements CatalystAdvancedIOHandler {
 	// Applied skills table name in Data Store
 	private static final String TABLE_APPLICATION = "AppliedSkill";
 
-	private void sendError(HttpServletResponse response, int status, String message) throws Exception {
+	// ZCQL returns at most 300 rows per SELECT; keyset pages use the full window
+	private static final int PAGE_SIZE = 300;
+
+	// Rows per insertRows call during import, and caps that keep its memory bounded
+	private static final int IMPORT_BATCH_SIZE = 200;
+	private static final int IMPORT_MAX_LINE_CHARS = 64 * 1024;
+	private static final int IMPORT_MAX_ERRORS = 50;
+	// Imported learning ids remembered for linking applied lines; later learnings still import but cannot be parents
+	private static final int IMPORT_MAX_LINKED = 50000;
+	private static final String[] IMPORT_FIELDS = {
+		"record", "id", "topic", "category", "source", "learningId", "type", "notes", "applied_action"
+	};
+
+	// Largest JSON body accepted by the single-object POST routes
+	private static final int MAX_BODY_BYTES = 64 * 1024;
+
+	// Applied skills embedded in the learning detail view, and the largest page of the applied route
+	private static final int APPLIED_PREVIEW_SIZE = 10;
+	private static final int APPLIED_MAX_PAGE = 100;
+
+	// Upper bound for ?preview=, in code points
+	private static final int PREVIEW_MAX_CHARS = 1000;
+
+	// Ids per IN (...) statement in bulk delete, and the most ids one call may name
+	private static final int BULK_DELETE_CHUNK = 100;
+	private static final int BULK_DELETE_MAX_IDS = 1000;
+
+	// Most recent applications whose learnings' sources feed the recommender's source affinity
+	private static final int RECOMMEND_RECENT_APPLIED = 20;
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	// RESPONSE_WRITER=jackson streams responses through JsonGenerator; anything else keeps the StringBuilder path
+	private static final boolean JACKSON_WRITER = "jackson".equalsIgnoreCase(config("RESPONSE_WRITER", "builder"));
+
+	private static final AccessLog ACCESS_LOG = new AccessLog(
+		configInt("ACCESS_LOG_CAPACITY", 4096),
+		configDouble("ACCESS_LOG_SAMPLE_RATE", 1.0),
+		1000L
+	);
+
+	// DELETE_MODE=soft tombstones the Learning (deleted = true) and purges its children in the background
+	private static final boolean SOFT_DELETE = "soft".equalsIgnoreCase(config("DELETE_MODE", "hard"));
+
+	// Appended to every Learning read so tombstoned rows stay hidden until purged. Rows written
+	// before the column existed have deleted = null and count as live.
+	private static final String LIVE_CONDITION = "(deleted = false OR deleted IS NULL)";
+	private static final String LIVE_LEARNING = SOFT_DELETE ? " AND " + LIVE_CONDITION : "";
+	private static final String LIVE_JOINED_LEARNING = " AND (Learning.deleted = false OR Learning.deleted IS NULL)";
+
+	// Every ZCQL statement, compiled once; the ids tag per-statement metrics in /api/_health
+	private static final String APPLIED_COLUMNS_JOINED = TABLE_APPLICATION + ".ROWID, " + TABLE_APPLICATION + ".learning_id, "
+		+ TABLE_APPLICATION + ".type, " + TABLE_APPLICATION + ".notes, " + TABLE_APPLICATION + ".applied_action, "
+		+ TABLE_APPLICATION + ".CREATEDTIME FROM " + TABLE_APPLICATION + " INNER JOIN Learning ON " + TABLE_APPLICATION
+		+ ".learning_id = Learning.ROWID";
+	// Keyset pages in ROWID order, which is also creation order; a single SELECT would stop at PAGE_SIZE rows
+	private static final ZcqlTemplate Q_LEARNINGS_PAGE = ZcqlTemplate.compileBatched("learning.page",
+		"SELECT ROWID, topic, category, source, CREATEDTIME FROM Learning WHERE ROWID > {long} AND CREATORID = {long}" + LIVE_LEARNING
+			+ " ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_APPLIED_LEARNING_IDS_PAGE = ZcqlTemplate.compileBatched("applied.learningIdsPage",
+		"SELECT ROWID, learning_id FROM " + TABLE_APPLICATION + " WHERE ROWID > {long} AND CREATORID = {long}"
+			+ " ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_LEARNING = ZcqlTemplate.compile("learning.get",
+		"SELECT ROWID, topic, category, source, CREATEDTIME FROM Learning WHERE ROWID = {long}" + LIVE_LEARNING);
+	private static final ZcqlTemplate Q_LEARNING_EXISTS = ZcqlTemplate.compile("learning.exists",
+		"SELECT ROWID FROM Learning WHERE ROWID = {long}" + LIVE_LEARNING);
+	private static final ZcqlTemplate Q_LEARNINGS_EXIST = ZcqlTemplate.compileBatched("learning.existsIn",
+		"SELECT ROWID FROM Learning WHERE ROWID IN ({longs}) AND CREATORID = {long}" + LIVE_LEARNING);
+	private static final ZcqlTemplate Q_LEARNING_DELETED = ZcqlTemplate.compile("learning.deletedFlag",
+		"SELECT ROWID, deleted FROM Learning WHERE ROWID = {long}");
+	private static final ZcqlTemplate Q_APPLIED_COUNT = ZcqlTemplate.compile("applied.count",
+		"SELECT COUNT(ROWID) FROM " + TABLE_APPLICATION + " WHERE learning_id = {long}");
+	// One row past the limit is read so the last page is known without a count
+	private static final ZcqlTemplate Q_APPLIED_PAGE = ZcqlTemplate.compile("applied.page",
+		"SELECT ROWID, type, notes, applied_action, CREATEDTIME FROM " + TABLE_APPLICATION
+			+ " WHERE learning_id = {long} ORDER BY ROWID DESC LIMIT {long}");
+	private static final ZcqlTemplate Q_APPLIED_PAGE_AFTER = ZcqlTemplate.compile("applied.pageAfter",
+		"SELECT ROWID, type, notes, applied_action, CREATEDTIME FROM " + TABLE_APPLICATION
+			+ " WHERE learning_id = {long} AND ROWID < {long} ORDER BY ROWID DESC LIMIT {long}");
+	private static final ZcqlTemplate Q_APPLIED = ZcqlTemplate.compile("applied.get", SOFT_DELETE
+		? "SELECT " + APPLIED_COLUMNS_JOINED + " WHERE " + TABLE_APPLICATION + ".ROWID = {long} AND " + TABLE_APPLICATION
+			+ ".CREATORID = {long}" + LIVE_JOINED_LEARNING
+		: "SELECT ROWID, learning_id, type, notes, applied_action, CREATEDTIME FROM " + TABLE_APPLICATION
+			+ " WHERE ROWID = {long} AND CREATORID = {long}");
+	private static final ZcqlTemplate Q_TOMBSTONE_LEARNING = ZcqlTemplate.compile("learning.tombstone",
+		"UPDATE Learning SET deleted = true WHERE ROWID = {long}");
+	private static final ZcqlTemplate Q_TOMBSTONE_LEARNINGS = ZcqlTemplate.compileBatched("learning.tombstoneIn",
+		"UPDATE Learning SET deleted = true WHERE ROWID IN ({longs})");
+	private static final ZcqlTemplate Q_DELETE_APPLIED_OF = ZcqlTemplate.compile("applied.deleteOf",
+		"DELETE FROM " + TABLE_APPLICATION + " WHERE learning_id = {long}");
+	private static final ZcqlTemplate Q_DELETE_APPLIED_OF_IN = ZcqlTemplate.compileBatched("applied.deleteOfIn",
+		"DELETE FROM " + TABLE_APPLICATION + " WHERE learning_id IN ({longs})");
+	private static final ZcqlTemplate Q_DELETE_LEARNING = ZcqlTemplate.compile("learning.delete",
+		"DELETE FROM Learning WHERE ROWID = {long}");
+	private static final ZcqlTemplate Q_DELETE_LEARNINGS = ZcqlTemplate.compileBatched("learning.deleteIn",
+		"DELETE FROM Learning WHERE ROWID IN ({longs})");
+	private static final ZcqlTemplate Q_EXPORT_LEARNINGS = ZcqlTemplate.compileBatched("export.learnings",
+		"SELECT ROWID, topic, category, source, CREATEDTIME FROM Learning WHERE ROWID > {long} AND CREATORID = {long}" + LIVE_LEARNING
+			+ " ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_EXPORT_APPLIED = ZcqlTemplate.compileBatched("export.applied", SOFT_DELETE
+		? "SELECT " + APPLIED_COLUMNS_JOINED + " WHERE " + TABLE_APPLICATION + ".ROWID > {long} AND " + TABLE_APPLICATION
+			+ ".CREATORID = {long}" + LIVE_JOINED_LEARNING + " ORDER BY " + TABLE_APPLICATION + ".ROWID ASC LIMIT " + PAGE_SIZE
+		: "SELECT ROWID, learning_id, type, notes, applied_action, CREATEDTIME FROM " + TABLE_APPLICATION
+			+ " WHERE ROWID > {long} AND CREATORID = {long} ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_TIMELINE_LEARNINGS = ZcqlTemplate.compileBatched("timeline.learnings",
+		"SELECT ROWID, CREATEDTIME FROM Learning WHERE ROWID > {long} AND CREATORID = {long}" + LIVE_LEARNING
+			+ " ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_TIMELINE_LEARNINGS_IN_CATEGORY = ZcqlTemplate.compileBatched("timeline.learningsInCategory",
+		"SELECT ROWID, CREATEDTIME FROM Learning WHERE ROWID > {long} AND CREATORID = {long}" + LIVE_LEARNING + " AND category = {string}"
+			+ " ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_TIMELINE_APPLIED = ZcqlTemplate.compileBatched("timeline.applied",
+		"SELECT ROWID, learning_id, CREATEDTIME FROM " + TABLE_APPLICATION + " WHERE ROWID > {long} AND CREATORID = {long}"
+			+ " ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_RECOMMEND_RECENT_SOURCES = ZcqlTemplate.compile("recommend.recentSources",
+		"SELECT ROWID, source FROM Learning WHERE ROWID IN ({longs}) AND CREATORID = {long}" + LIVE_LEARNING);
+	private static final ZcqlTemplate Q_ADMIN_MIN_CREATOR = ZcqlTemplate.compile("admin.minCreator",
+		"SELECT MIN(CREATORID) FROM Learning");
+	private static final ZcqlTemplate Q_ADMIN_MAX_CREATOR = ZcqlTemplate.compile("admin.maxCreator",
+		"SELECT MAX(CREATORID) FROM Learning");
+	private static final ZcqlTemplate Q_ADMIN_LEARNINGS = ZcqlTemplate.compileBatched("admin.learnings",
+		"SELECT ROWID, CREATORID, category FROM Learning WHERE CREATORID > {long} AND CREATORID <= {long}"
+			+ " AND ROWID > {long}" + LIVE_LEARNING + " ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_ADMIN_APPLIED = ZcqlTemplate.compileBatched("admin.applied",
+		"SELECT ROWID, learning_id FROM " + TABLE_APPLICATION + " WHERE CREATORID > {long} AND CREATORID <= {long}"
+			+ " AND ROWID > {long} ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_DUPLICATE_INDEX_PAGE = ZcqlTemplate.compileBatched("learning.duplicateIndexPage",
+		"SELECT ROWID, topic, category FROM Learning WHERE ROWID > {long}" + LIVE_LEARNING + " ORDER BY ROWID ASC LIMIT " + PAGE_SIZE);
+	private static final ZcqlTemplate Q_HEALTH_PROBE = ZcqlTemplate.compile("health.probe",
+		"SELECT ROWID FROM Learning LIMIT 1");
+
+	// Computed analytics per user and parameters; every write by the user drops theirs
+	private static final PerUserCache<Timeline> ANALYTICS_CACHE = new PerUserCache<Timeline>(
+		configInt("ANALYTICS_CACHE_MAX_USERS", 1000),
+		16,
+		configInt("ANALYTICS_CACHE_TTL_SECONDS", 300) * 1000L
+	);
+
+	// CREATORIDs allowed to call /api/admin/*, comma-separated; empty disables the admin routes
+	private static final Set<Long> ADMIN_USER_IDS = longSet(config("ADMIN_USER_IDS", ""));
+
+	// The admin report splits the CREATORID range into ADMIN_REPORT_PARTITIONS ranges scanned
+	// ADMIN_REPORT_PARALLELISM at a time; its own pool, since the scans block on the Data Store
+	private static final int ADMIN_REPORT_PARTITIONS = Math.max(1, configInt("ADMIN_REPORT_PARTITIONS", 16));
+	private static final int ADMIN_REPORT_PARALLELISM = Math.max(1, configInt("ADMIN_REPORT_PARALLELISM", 4));
+	private static final ExecutorService ADMIN_REPORT_POOL = Executors.newFixedThreadPool(ADMIN_REPORT_PARALLELISM, r -> {
+		Thread t = new Thread(r, "skillbridge-admin-report");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// Admin-scope project of the admin report, initialized on first use. The SDK keeps initialized
+	// projects in a static map that is not thread-safe, so initProject runs once, under the lock.
+	private static final Object ADMIN_PROJECT_LOCK = new Object();
+	private static volatile ZCProject adminProject;
+
+	// Learnings per user by normalized topic and category; POST /api/learning answers 409 for a duplicate
+	private static final DuplicateIndex DUPLICATE_INDEX = new DuplicateIndex(
+		configInt("DUPLICATE_INDEX_MAX_USERS", 1000),
+		configInt("DUPLICATE_INDEX_TTL_SECONDS", 600) * 1000L
+	);
+
+	// RESPONSE_CACHE=memory|catalyst keeps list, detail and dashboard bodies per user in an L1 in front of a shared L2
+	private static final ResponseCache RESPONSE_CACHE = responseCache(config("RESPONSE_CACHE", "off"));
+
+	// APPLIED_WRITE_MODE=behind acknowledges applied skills with a provisional id and group-commits them;
+	// it stays off when the SDK context cannot be handed to the flusher thread
+	private static final WriteBehindBuffer APPLIED_WRITE_BEHIND = "behind".equalsIgnoreCase(config("APPLIED_WRITE_MODE", "direct"))
+		&& CatalystContext.available()
+		? new WriteBehindBuffer(
+			TABLE_APPLICATION,
+			configInt("WRITE_BEHIND_CAPACITY", 2000),
+			configInt("WRITE_BEHIND_BATCH_SIZE", 100),
+			configInt("WRITE_BEHIND_MAX_DELAY_MS", 500),
+			new WriteBehindBuffer.Durability() {
+				@Override
+				public void buffered(String provisionalId, ZCRowObject row) {
+					WriteBehindBuffer.LOG_FAILURES.buffered(provisionalId, row);
+				}
+
+				@Override
+				public void withdrawn(String provisionalId) {
+					WriteBehindBuffer.LOG_FAILURES.withdrawn(provisionalId);
+				}
+
+				// The request that queued these rows has already invalidated; this covers a read that ran before the flush
+				@Override
+				public void committed(List<String> provisionalIds, List<ZCRowObject> inserted) {
+					WriteBehindBuffer.LOG_FAILURES.committed(provisionalIds, inserted);
+					LinkedHashSet<Long> owners = new LinkedHashSet<Long>();
+					for (ZCRowObject row : inserted) {
+						long owner = longColumn(row, TABLE_APPLICATION, "CREATORID");
+						if (owner > 0) owners.add(owner);
+					}
+					for (Long owner : owners) {
+						ANALYTICS_CACHE.invalidate(owner);
+						if (RESPONSE_CACHE != null) RESPONSE_CACHE.bump(owner);
+					}
+				}
+
+				@Override
+				public void failed(List<String> provisionalIds, List<ZCRowObject> rows, Exception error) {
+					WriteBehindBuffer.LOG_FAILURES.failed(provisionalIds, rows, error);
+				}
+			})
+		: null;
+
+	// Stored POST responses replayed for a repeated Idempotency-Key
+	private static final IdempotencyCache IDEMPOTENCY_CACHE = new IdempotencyCache(
+		configInt("IDEMPOTENCY_MAX_ENTRIES", 10000),
+		configInt("IDEMPOTENCY_TTL_SECONDS", 86400) * 1000L
+	);
+
+	// CREATORID per credential hash, so ZCUser is asked once per session rather than once per request
+	private static final int MAX_KNOWN_CREDENTIALS = 10000;
+	private static final Map<String, Long> USER_ID_BY_CREDENTIAL = Collections.synchronizedMap(
+		new LinkedHashMap<String, Long>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+				return size() > MAX_KNOWN_CREDENTIALS;
+			}
+		}
+	);
+
+	// Per-user admission control; reads and writes draw from separate buckets
+	private static final RateLimiter RATE_LIMITER = Boolean.parseBoolean(config("RATE_LIMIT_ENABLED", "true"))
+		? new RateLimiter(
+			configInt("RATE_READS_PER_MINUTE", 120),
+			configInt("RATE_READ_BURST", 60),
+			configInt("RATE_WRITES_PER_MINUTE", 30),
+			configInt("RATE_WRITE_BURST", 20))
+		: null;
+
+	// Runs independent Data Store reads of one request concurrently
+	private static final ExecutorService QUERY_POOL = Executors.newFixedThreadPool(configInt("QUERY_POOL_SIZE", 8), r -> {
+		Thread t = new Thread(r, "skillbridge-query");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// READ_HEDGE=true moves reads onto QUERY_POOL with a deadline and a second attempt past the rolling p95.
+	// Otherwise, or when the SDK context cannot be carried to the pool, reads stay on the request thread.
+	private static final HedgedReads HEDGED_READS = new HedgedReads(
+		CatalystContext.available() ? QUERY_POOL : null,
+		configInt("READ_TIMEOUT_MS", 10000),
+		Boolean.parseBoolean(config("READ_HEDGE", "false")),
+		configDouble("READ_HEDGE_PERCENTILE", 0.95),
+		configInt("READ_HEDGE_MIN_DELAY_MS", 50),
+		configInt("READ_HEDGE_MIN_SAMPLES", 50)
+	);
+
+	// Set once /api/_warmup has completed in this JVM; later calls skip the work
+	private static final AtomicBoolean WARMED_UP = new AtomicBoolean();
+
+	// Table id per name, learned from the first getTable; a handle built from the id needs no metadata call
+	private static final ConcurrentHashMap<String, Long> TABLE_IDS = new ConcurrentHashMap<String, Long>();
+
+	// /api/_health probe bounds and the latencies of recent probes
+	private static final int HEALTH_PROBE_TIMEOUT_MS = configInt("HEALTH_PROBE_TIMEOUT_MS", 2000);
+	private static final int HEALTH_SLOW_MS = configInt("HEALTH_SLOW_MS", 1000);
+	private static final LatencyWindow PROBE_LATENCY = new LatencyWindow(64);
+
+	private interface Handler {
+		void handle(HttpServletRequest request, HttpServletResponse response) throws Exception;
+	}
+
+	// Data Store calls made by the request on this thread; reset at the top of runner
+	private static final ThreadLocal<int[]> DATA_STORE_CALLS = ThreadLocal.withInitial(() -> new int[1]);
+
+	// QUERY_BUDGET=log|fail checks each request's calls against its route budget and flags repeated
+	// shapes (N+1); meant for development and tests, off in production
+	private static final QueryBudget QUERY_BUDGET = new QueryBudget(
+		QueryBudget.mode(config("QUERY_BUDGET", "off")),
+		configInt("QUERY_REPEAT_LIMIT", 5),
+		QueryBudget.budgets(defaultQueryBudgets(), config("QUERY_BUDGETS", ""))
+	);
+
+	// Purge attempts are tracked by QUERY_BUDGET like requests, so it is declared first
+	private static final PurgeWorker PURGE_WORKER = SOFT_DELETE
+		? new PurgeWorker("Learning", TABLE_APPLICATION, configInt("PURGE_BATCH_SIZE", 200), configInt("PURGE_MAX_ATTEMPTS", 5), 1000L,
+			QUERY_BUDGET)
+		: null;
+
+	// Deployment settings come from env_variables in catalyst-config.json
+	private static String config(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+	}
+
+	private static int configInt(String name, int defaultValue) {
+		try {
+			return Integer.parseInt(config(name, String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			LOGGER.log(Level.WARNING, "Ignoring invalid " + name);
+			return defaultValue;
+		}
+	}
+
+	private static double configDouble(String name, double defaultValue) {
+		try {
+			return Double.parseDouble(config(name, String.valueOf(defaultValue)));
+		} catch (NumberFormatException e) {
+			LOGGER.log(Level.WARNING, "Ignoring invalid " + name);
+			return defaultValue;
+		}
+	}
+
+	// Data Store calls per route, counting a first-use table lookup and the first page or chunk of each
+	// batched statement (later ones are continuations; see QueryBudget); QUERY_BUDGETS overrides entries
+	private static Map<String, Integer> defaultQueryBudgets() {
+		Map<String, Integer> budgets = new HashMap<String, Integer>();
+		budgets.put("GET /api/learning", 2);
+		budgets.put("GET /api/bootstrap", 2);
+		budgets.put("GET /api/learning/{id}", 3);
+		budgets.put("GET /api/learning/{id}/applied", 2);
+		budgets.put("GET /api/learning/{id}/purge", 1);
+		// A background purge attempt (PurgeWorker), not an HTTP route
+		budgets.put("PURGE /api/learning/{id}", 5);
+		budgets.put("GET /api/applied/{id}", 1);
+		budgets.put("POST /api/learning", 3);
+		budgets.put("POST /api/learning/{id}/applied", 3);
+		budgets.put("DELETE /api/learning/{id}", 3);
+		budgets.put("POST /api/learning/bulk-delete", 3);
+		budgets.put("GET /api/export", 2);
+		budgets.put("POST /api/import", 4);
+		budgets.put("GET /api/analytics/timeline", 2);
+		budgets.put("GET /api/recommendations", 3);
+		budgets.put("GET /api/admin/report", 2);
+		budgets.put("GET /api/_warmup", 0);
+		budgets.put("GET /api/_health", 1);
+		return budgets;
+	}
+
+	private static Set<Long> longSet(String values) {
+		Set<Long> set = new HashSet<Long>();
+		for (String value : values.split(",")) {
+			if (value.trim().isEmpty()) continue;
+			try {
+				set.add(Long.parseLong(value.trim()));
+			} catch (NumberFormatException e) {
+				LOGGER.log(Level.WARNING, "Ignoring invalid id " + value.trim());
+			}
+		}
+		return set;
+	}
+
+	// null when RESPONSE_CACHE is off
+	private static ResponseCache responseCache(String mode) {
+		SharedCache shared;
+		if ("catalyst".equalsIgnoreCase(mode)) {
+			Long segmentId = null;
+			String segment = config("RESPONSE_CACHE_SEGMENT", "");
+			if (!segment.isEmpty()) {
+				try {
+					segmentId = Long.valueOf(segment);
+				} catch (NumberFormatException e) {
+					LOGGER.log(Level.WARNING, "Ignoring invalid RESPONSE_CACHE_SEGMENT; using the default segment");
+				}
+			}
+			shared = new CatalystSharedCache(segmentId);
+		} else if ("memory".equalsIgnoreCase(mode)) {
+			shared = new InMemorySharedCache(configInt("RESPONSE_CACHE_MEMORY_MAX_ENTRIES", 10000));
+		} else {
+			return null;
+		}
+		return new ResponseCache(
+			shared,
+			configInt("RESPONSE_CACHE_L1_MAX_ENTRIES", 500),
+			configInt("RESPONSE_CACHE_TTL_SECONDS", 3600),
+			configInt("RESPONSE_CACHE_VERSION_TTL_MS", 1000),
+			configInt("RESPONSE_CACHE_L2_MAX_CHARS", 16384));
+	}
+
+	// All Data Store access goes through these so per-request call counts stay accurate
+	private ArrayList<ZCRowObject> executeQuery(ZcqlTemplate.Query query) throws Exception {
+		return executeQuery(query, null);
+	}
+
+	private ArrayList<ZCRowObject> executeQuery(ZcqlTemplate.Query query, ZCProject project) throws Exception {
+		DATA_STORE_CALLS.get()[0]++;
+		QueryBudget.Call call = QUERY_BUDGET.record(query.template.id, query.template.batched);
+		return fullPage(call, query.execute(project));
+	}
+
+	// One chunk of a chunked IN statement; more when further chunks of the same statement follow
+	private ArrayList<ZCRowObject> executeChunk(ZcqlTemplate.Query query, boolean more) throws Exception {
+		DATA_STORE_CALLS.get()[0]++;
+		QueryBudget.Call call = QUERY_BUDGET.record(query.template.id, query.template.batched);
+		if (more) call.more();
+		return query.execute();
+	}
+
+	// A full keyset page is followed by the next one, which QUERY_BUDGET then does not count
+	private static ArrayList<ZCRowObject> fullPage(QueryBudget.Call call, ArrayList<ZCRowObject> rows) {
+		if (rows != null && rows.size() >= PAGE_SIZE) call.more();
+		return rows;
+	}
+
+	// Starts a read on QUERY_POOL under the submitting request's credentials; the call is counted against that request
+	private Future<ArrayList<ZCRowObject>> submitQuery(ZcqlTemplate.Query zcql) {
+		DATA_STORE_CALLS.get()[0]++;
+		QueryBudget.Call call = QUERY_BUDGET.record(zcql.template.id, zcql.template.batched);
+		CatalystContext context = CatalystContext.capture();
+		Callable<ArrayList<ZCRowObject>> query = () -> fullPage(call, context.call(zcql::execute));
+		if (CatalystContext.available()) return QUERY_POOL.submit(query);
+		FutureTask<ArrayList<ZCRowObject>> inline = new FutureTask<ArrayList<ZCRowObject>>(query);
+		inline.run();
+		return inline;
+	}
+
+	// On timeout the read is cancelled and TimeoutException thrown
+	private ArrayList<ZCRowObject> await(Future<ArrayList<ZCRowObject>> query, long timeoutMillis) throws Exception {
+		try {
+			return query.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			query.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception) cause : e;
+		}
+	}
+
+	// Starts an idempotent read under HEDGED_READS, with this request's credentials. Every attempt that is
+	// issued, including a hedge, is counted against the request; a read cancelled before it ran is not.
+	// A hedge repeats the first attempt, so only that one goes to QUERY_BUDGET.
+	private HedgedReads.Read<ArrayList<ZCRowObject>> startRead(ZcqlTemplate.Query query) {
+		CatalystContext context = CatalystContext.capture();
+		AtomicReference<QueryBudget.Call> call = new AtomicReference<QueryBudget.Call>();
+		return HEDGED_READS.start(() -> fullPage(call.get(), context.call(query::execute)), () -> {
+			DATA_STORE_CALLS.get()[0]++;
+			if (call.get() == null) call.set(QUERY_BUDGET.record(query.template.id, query.template.batched));
+		});
+	}
+
+	private ArrayList<ZCRowObject> await(HedgedReads.Read<ArrayList<ZCRowObject>> read) throws Exception {
+		return read.await();
+	}
+
+	// Table handle under this request's credentials; only the first lookup per table costs a Data Store call
+	private ZCTable table(String name) throws Exception {
+		Long id = TABLE_IDS.get(name);
+		if (id != null) return DataStore.get().table(id);
+		DATA_STORE_CALLS.get()[0]++;
+		QUERY_BUDGET.record("table." + name, false);
+		ZCTable table = DataStore.get().table(name);
+		if (table.getTableId() != null) TABLE_IDS.putIfAbsent(name, table.getTableId());
+		return table;
+	}
+
+	private ZCRowObject insertRow(ZCTable table, ZCRowObject row) throws Exception {
+		DATA_STORE_CALLS.get()[0]++;
+		QUERY_BUDGET.record("insertRow", false);
+		return table.insertRow(row);
+	}
+
+	// One batch of an import into the named table; more when the input goes on past this batch
+	private List<ZCRowObject> insertRows(String name, List<ZCRowObject> rows, boolean more) throws Exception {
+		ZCTable table = table(name);
+		DATA_STORE_CALLS.get()[0]++;
+		QueryBudget.Call call = QUERY_BUDGET.record("insertRows." + name, true);
+		if (more) call.more();
+		return table.insertRows(rows);
+	}
+
+	private List<ZCRowObject> updateRows(ZCTable table, List<ZCRowObject> rows) throws Exception {
+		DATA_STORE_CALLS.get()[0]++;
+		QUERY_BUDGET.record("updateRows", false);
+		return table.updateRows(rows);
+	}
+
+	/**
+	 * CREATORID of the calling user, or null when Catalyst reports no signed-in user.
+	 * Resolved once per request and cached per credential across requests.
+	 */
+	private Long currentUserId(HttpServletRequest request) {
+		Object memo = request.getAttribute("skillbridge.userId");
+		if (memo instanceof Long) return (Long) memo;
+
+		String credential = null;
+		try {
+			String authorization = request.getHeader("Authorization");
+			String cookie = request.getHeader("Cookie");
+			if (authorization != null || cookie != null) {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				digest.update(String.valueOf(authorization).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) '\n');
+				digest.update(String.valueOf(cookie).getBytes(StandardCharsets.UTF_8));
+				credential = new BigInteger(1, digest.digest()).toString(36);
+			}
+		} catch (Exception e) {
+			LOGGER.log(Level.WARNING, "Credential hash failed", e);
+		}
+
+		Long userId = credential != null ? USER_ID_BY_CREDENTIAL.get(credential) : null;
+		if (userId == null) {
+			try {
+				userId = DataStore.get().currentUserId();
+			} catch (Exception e) {
+				LOGGER.log(Level.WARNING, "Current user lookup failed: " + e.getMessage());
+			}
+			if (userId != null && credential != null) USER_ID_BY_CREDENTIAL.put(credential, userId);
+		}
+		if (userId != null) request.setAttribute("skillbridge.userId", userId);
+		return userId;
+	}
+
+	/**
+	 * Runs a POST handler honouring the Idempotency-Key header: a key already completed by this
+	 * user replays the stored response without touching the Data Store. The key is bound to the
+	 * method, URI, query string and a hash of the body; reusing it for anything else gets 422.
+	 */
+	private void withIdempotency(HttpServletRequest request, HttpServletResponse response, Handler handler) throws Exception {
+		String key = request.getHeader("Idempotency-Key");
+		Long userId = key != null && !key.isEmpty() ? currentUserId(request) : null;
+		if (userId == null) {
+			handler.handle(request, response);
+			return;
+		}
+		if (key.length() > 255) {
+			sendError(response, 400, "Idempotency-Key is too long");
+			return;
+		}
+
+		byte[] requestBody = readRequestBody(request, response);
+		if (requestBody == null) return;
+		String query = request.getQueryString();
+		String fingerprint = request.getMethod() + " " + request.getRequestURI() + (query != null ? "?" + query : "")
+			+ " " + new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(requestBody)).toString(36);
+
+		String cacheKey = userId + ":" + key;
+		IdempotencyCache.Entry existing = IDEMPOTENCY_CACHE.reserve(cacheKey, fingerprint);
+		if (existing != null) {
+			if (!existing.request.equals(fingerprint)) {
+				sendError(response, 422, "Idempotency-Key was already used for a different request");
+			} else if (existing.body == null) {
+				sendError(response, 409, "A request with this Idempotency-Key is still in progress");
+			} else {
+				response.setStatus(existing.status);
+				response.setContentType(existing.contentType);
+				response.setHeader("Idempotent-Replayed", "true");
+				response.getOutputStream().write(existing.body);
+			}
+			return;
+		}
+
+		IdempotencyCache.CapturingResponse captured = new IdempotencyCache.CapturingResponse(response);
+		try {
+			handler.handle(request, captured);
+		} catch (Exception e) {
+			IDEMPOTENCY_CACHE.release(cacheKey);
+			throw e;
+		}
+		byte[] body = captured.body();
+		IDEMPOTENCY_CACHE.complete(cacheKey, captured.getStatus(), captured.getContentType(), body);
+		response.getOutputStream().write(body);
+	}
+
+	/**
+	 * Runs a GET handler through the response cache: a body cached under the user's current
+	 * version is replayed without touching the Data Store, and a 200 is stored for the next call.
+	 * Without a user or a readable version the handler simply runs.
+	 */
+	private void withResponseCache(HttpServletRequest request, HttpServletResponse response, Handler handler) throws Exception {
+		Long userId = RESPONSE_CACHE != null ? currentUserId(request) : null;
+		String version = userId != null ? RESPONSE_CACHE.version(userId) : null;
+		if (version == null) {
+			handler.handle(request, response);
+			return;
+		}
+
+		String query = request.getQueryString();
+		String route = request.getRequestURI() + (query != null ? "?" + query : "");
+		String body = RESPONSE_CACHE.get(userId, version, route);
+		if (body != null) {
+			response.setStatus(200);
+			response.setContentType("application/json");
+			response.setCharacterEncoding("UTF-8");
+			response.setHeader("X-Cache", "hit");
+			response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+
+		response.setHeader("X-Cache", "miss");
+		IdempotencyCache.CapturingResponse captured = new IdempotencyCache.CapturingResponse(response);
+		handler.handle(request, captured);
+		byte[] bytes = captured.body();
+		if (captured.getStatus() == 200) RESPONSE_CACHE.put(userId, version, route, new String(bytes, StandardCharsets.UTF_8));
+		response.getOutputStream().write(bytes);
+	}
+
+	// Tokens a route takes from its bucket, roughly proportional to the Data Store work it does
+	private static int routeCost(String method, String uri) {
+		if ("GET".equals(method)) {
+			if ("/api/export".equals(uri) || "/api/admin/report".equals(uri)) return 20;
+			// A full scan on a miss, usually served from the analytics cache
+			if ("/api/analytics/timeline".equals(uri)) return 10;
+			if ("/api/recommendations".equals(uri)) return 10;
+			if ("/api/learning".equals(uri) || "/api/bootstrap".equals(uri)) return 5;
+			if (uri.startsWith("/api/learning/")) return 2;
+			return 1;
+		}
+		if ("/api/import".equals(uri)) return 20;
+		if ("/api/learning/bulk-delete".equals(uri)) return 10;
+		if ("DELETE".equals(method)) return 3;
+		return 1;
+	}
+
+	// Sends 429 and returns false when the caller's bucket cannot cover this route
+	private boolean admit(HttpServletRequest request, HttpServletResponse response, String method, String uri) throws Exception {
+		if (RATE_LIMITER == null || !uri.startsWith("/api/")) return true;
+		Long userId = currentUserId(request);
+		if (userId == null) return true;
+		long retryAfter = RATE_LIMITER.acquire(userId, !"GET".equals(method), routeCost(method, uri));
+		if (retryAfter == 0) return true;
+		response.setHeader("Retry-After", String.valueOf(retryAfter));
+		sendError(response, 429, "Too many requests; retry in " + retryAfter + " s");
+		return false;
+	}
+
+	private ResponseWriter openJson(HttpServletResponse response, int status) throws Exception {
+		return openJson(response, status, "application/json");
+	}
+
+	private ResponseWriter openJson(HttpServletResponse response, int status, String contentType) throws Exception {
 		response.setStatus(status);
-		response.setContentType("application/json");
-		response.getWriter().write("{\"error\":\"" + escapeJson(message) + "\"}");
+		response.setContentType(contentType);
+		response.setCharacterEncoding("UTF-8");
+		return JACKSON_WRITER
+			? new JacksonResponseWriter(response.getOutputStream())
+			: new StringBuilderResponseWriter(response.getWriter());
+	}
+
+	private void sendError(HttpServletResponse response, int status, String message) throws Exception {
+		ResponseWriter out = openJson(response, status);
+		out.beginObject().field("error", message).endObject();
+		out.close();
+	}
+
+	/**
+	 * Reads the raw request body into a byte array sized from Content-Length.
+	 * Sends 413 and returns null when the declared or actual size exceeds MAX_BODY_BYTES.
+	 * The body is kept on the request, so a wrapper and the handler can both read it.
+	 */
+	private byte[] readRequestBody(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		Object memo = request.getAttribute("skillbridge.body");
+		if (memo instanceof byte[]) return (byte[]) memo;
+
+		long declared = request.getContentLengthLong();
+		if (declared > MAX_BODY_BYTES) {
+			sendError(response, 413, "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+			return null;
+		}
+		byte[] buf = new byte[declared >= 0 ? (int) declared : 1024];
+		int len = 0;
+		InputStream in = request.getInputStream();
+		while (true) {
+			if (len == buf.length) {
+				if (declared >= 0) break;
+				if (len >= MAX_BODY_BYTES) {
+					// Content-Length was absent or understated; one probe byte tells us whether more follows
+					if (in.read() == -1) break;
+					sendError(response, 413, "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+					return null;
+				}
+				buf = Arrays.copyOf(buf, Math.min(Math.max(len * 2, 1024), MAX_BODY_BYTES));
+			}
+			int n = in.read(buf, len, buf.length - len);
+			if (n == -1) break;
+			len += n;
+		}
+		byte[] body = len == buf.length ? buf : Arrays.copyOf(buf, len);
+		request.setAttribute("skillbridge.body", body);
+		return body;
+	}
+
+	private JsonParser createJsonParser(HttpServletRequest request, byte[] body) throws Exception {
+		String encoding = request.getCharacterEncoding();
+		Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+		return StandardCharsets.UTF_8.equals(charset)
+			? JSON_FACTORY.createParser(body)
+			: JSON_FACTORY.createParser(new String(body, charset));
+	}
+
+	/**
+	 * Streams a top-level JSON object and returns the scalar elements of the named array field
+	 * as text, or null when the field is absent or not an array.
+	 */
+	private List<String> readJsonArrayField(HttpServletRequest request, byte[] body, String name) throws Exception {
+		JsonParser parser = createJsonParser(request, body);
+		List<String> values = null;
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IllegalArgumentException("Request body must be a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if (!name.equals(field) || token != JsonToken.START_ARRAY) {
+					parser.skipChildren();
+					continue;
+				}
+				values = new ArrayList<String>();
+				while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+					if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+						parser.skipChildren();
+						values.add("");
+					} else {
+						values.add(token == JsonToken.VALUE_NULL ? "" : parser.getText());
+					}
+				}
+			}
+		} finally {
+			parser.close();
+		}
+		return values;
+	}
+
+	/**
+	 * Streams a top-level JSON object once and returns the scalar values of the named fields,
+	 * in the order requested. Missing and null fields are null; nested values are skipped.
+	 */
+	private String[] readJsonFields(HttpServletRequest request, byte[] body, String... names) throws Exception {
+		return readJsonFields(createJsonParser(request, body), names);
+	}
+
+	private String[] readJsonFields(JsonParser parser, String... names) throws Exception {
+		String[] values = new String[names.length];
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IllegalArgumentException("Request body must be a JSON object");
+			}
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				token = parser.nextToken();
+				if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+					parser.skipChildren();
+					continue;
+				}
+				for (int i = 0; i < names.length; i++) {
+					if (names[i].equals(name)) {
+						values[i] = token == JsonToken.VALUE_NULL ? null : parser.getText();
+						break;
+					}
+				}
+			}
+			if (token != JsonToken.END_OBJECT) {
+				throw new IllegalArgumentException("Malformed JSON object");
+			}
+		} finally {
+			parser.close();
+		}
+		return values;
+	}
+
+	private String escapeCsv(String value) {
+		if (value == null || value.isEmpty()) return "";
+		boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+			|| value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+		if (!quote) return value;
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	private String safeString(Object val) {
+		if (val == null) return "";
+		String s = String.valueOf(val);
+		return "null".equals(s) ? "" : s;
+	}
+
+	private long parseRowId(String rowId) {
+		try {
+			return Long.parseLong(rowId);
+		} catch (NumberFormatException e) {
+			return -1L;
+		}
+	}
+
+	// GET /api/learning
+	private void handleGetLearning(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		Long userId = currentUserId(request);
+		if (userId == null) {
+			sendError(response, 401, "Sign in required");
+			return;
+		}
+
+		try {
+			// Count applied skills per learning_id so status is accurate
+			LongIntMap appliedCountByLearningId = countAppliedByLearningId(userId);
+			ArrayList<ZCRowObject> rows = new ArrayList<ZCRowObject>();
+			long cursor = 0;
+			while (true) {
+				ArrayList<ZCRowObject> page = await(startRead(Q_LEARNINGS_PAGE.bind().bind(cursor).bind(userId).query()));
+				if (page == null || page.isEmpty()) break;
+				rows.addAll(page);
+				cursor = Math.max(cursor, longColumn(page.get(page.size() - 1), "Learning", "ROWID"));
+				if (page.size() < PAGE_SIZE) break;
+			}
+
+			if ("columnar".equals(request.getParameter("format"))) {
+				writeLearningColumnar(response, rows, appliedCountByLearningId);
+				return;
+			}
+
+			ResponseWriter out = openJson(response, 200);
+			out.beginArray();
+
+			for (ZCRowObject row : rows) {
+				String rowId = safeString(row.get("Learning", "ROWID"));
+				String topic = safeString(row.get("Learning", "topic"));
+				String category = safeString(row.get("Learning", "category"));
+				String source = safeString(row.get("Learning", "source"));
+				String createdTime = safeString(row.get("Learning", "CREATEDTIME"));
+				long appliedCount = appliedCountByLearningId.get(longColumn(row, "Learning", "ROWID"));
+
+				writeLearningSummary(out, rowId, topic, category, source, createdTime, appliedCount);
+			}
+
+			out.endArray();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleGetLearning: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to fetch learning: " + e.getMessage());
+		}
 	}
 
-	private void sendJson(HttpServletResponse response, int status, String json) throws Exception {
-		response.setStatus(status);
-		response.setContentType("application/json");
-		response.getWriter().write(json);
-	}
+	// Applied skills per learning_id over every AppliedSkill page; invalid learning_ids are skipped
+	private LongIntMap countAppliedByLearningId(long userId) throws Exception {
+		LongIntMap appliedCountByLearningId = new LongIntMap(64);
+		long cursor = 0;
+		while (true) {
+			ArrayList<ZCRowObject> rows = await(startRead(Q_APPLIED_LEARNING_IDS_PAGE.bind().bind(cursor).bind(userId).query()));
+			if (rows == null || rows.isEmpty()) break;
+			for (ZCRowObject ar : rows) {
+				long learningId = longColumn(ar, TABLE_APPLICATION, "learning_id");
+				if (learningId > 0) appliedCountByLearningId.add(learningId, 1);
+				cursor = Math.max(cursor, longColumn(ar, TABLE_APPLICATION, "ROWID"));
+			}
+			if (rows.size() < PAGE_SIZE) break;
+		}
+		return appliedCountByLearningId;
+	}
+
+	/**
+	 * A numeric column read straight from the row's JSON, or -1 when it is missing or not a
+	 * non-negative integer. ZCRowObject.get(table, column) allocates a map on every call for ZCQL
+	 * rows, and the value may arrive as a Long or as a digit string, so both are handled here
+	 * without boxing or substring allocation.
+	 */
+	private static long longColumn(ZCRowObject row, String table, String column) {
+		Object columns = row.getRowObject().get(table);
+		Object value = columns instanceof Map ? ((Map<?, ?>) columns).get(column) : row.get(table, column);
+		if (value instanceof Number) return ((Number) value).longValue();
+		if (!(value instanceof CharSequence)) return -1L;
+		CharSequence digits = (CharSequence) value;
+		int length = digits.length();
+		// Up to 18 digits cannot overflow; ROWIDs have 17
+		if (length > 18) {
+			try {
+				return Long.parseLong(digits.toString());
+			} catch (NumberFormatException e) {
+				return -1L;
+			}
+		}
+		if (length == 0) return -1L;
+		long result = 0;
+		for (int i = 0; i < length; i++) {
+			char c = digits.charAt(i);
+			if (c < '0' || c > '9') return -1L;
+			result = result * 10 + (c - '0');
+		}
+		return result;
+	}
+
+	/**
+	 * GET /api/learning?format=columnar
+	 * One array per field instead of one object per row. category and status are dictionary
+	 * encoded ({ "dict": [...], "codes": [...] }). Ids are sent as idBase (a string, since
+	 * ROWIDs can exceed 2^53) plus small numeric offsets in idDelta, so id = idBase + idDelta[i].
+	 */
+	private void writeLearningColumnar(HttpServletResponse response, ArrayList<ZCRowObject> rows,
+			LongIntMap appliedCountByLearningId) throws Exception {
+		int n = rows.size();
+		long[] ids = new long[n];
+		long[] counts = new long[n];
+		long base = Long.MAX_VALUE;
+		for (int i = 0; i < n; i++) {
+			ids[i] = longColumn(rows.get(i), "Learning", "ROWID");
+			if (ids[i] > 0 && ids[i] < base) base = ids[i];
+			counts[i] = ids[i] > 0 ? appliedCountByLearningId.get(ids[i]) : 0L;
+		}
+		if (base == Long.MAX_VALUE) base = 0;
+
+		ResponseWriter out = openJson(response, 200);
+		out.beginObject()
+			.field("format", "columnar")
+			.field("count", n)
+			.field("idBase", String.valueOf(base));
+		out.name("idDelta").beginArray();
+		for (int i = 0; i < n; i++) out.value(ids[i] > 0 ? ids[i] - base : -1L);
+		out.endArray();
+		writeColumn(out, "topic", rows, "topic");
+		writeDictionaryColumn(out, "category", rows, "category");
+		writeColumn(out, "source", rows, "source");
+		writeColumn(out, "createdTime", rows, "CREATEDTIME");
+		out.name("appliedCount").beginArray();
+		for (int i = 0; i < n; i++) out.value(counts[i]);
+		out.endArray();
+		// Status has two values, so its dictionary is fixed and codes are 0/1
+		out.name("status").beginObject();
+		out.name("dict").beginArray().value("PENDING").value("APPLIED").endArray();
+		out.name("codes").beginArray();
+		for (int i = 0; i < n; i++) out.value(counts[i] > 0 ? 1 : 0);
+		out.endArray();
+		out.endObject();
+		out.endObject();
+		out.close();
+	}
+
+	private void writeColumn(ResponseWriter out, String name, ArrayList<ZCRowObject> rows, String column) throws Exception {
+		out.name(name).beginArray();
+		for (ZCRowObject row : rows) {
+			out.value(safeString(row.get("Learning", column)));
+		}
+		out.endArray();
+	}
+
+	private void writeDictionaryColumn(ResponseWriter out, String name, ArrayList<ZCRowObject> rows, String column) throws Exception {
+		Map<String, Integer> codeByValue = new LinkedHashMap<String, Integer>();
+		int[] codes = new int[rows.size()];
+		for (int i = 0; i < codes.length; i++) {
+			String value = safeString(rows.get(i).get("Learning", column));
+			Integer code = codeByValue.get(value);
+			if (code == null) {
+				code = codeByValue.size();
+				codeByValue.put(value, code);
+			}
+			codes[i] = code;
+		}
+		out.name(name).beginObject();
+		out.name("dict").beginArray();
+		for (String value : codeByValue.keySet()) out.value(value);
+		out.endArray();
+		out.name("codes").beginArray();
+		for (int code : codes) out.value(code);
+		out.endArray();
+		out.endObject();
+	}
+
+	// One element of the /api/learning list shape
+	private void writeLearningSummary(ResponseWriter out, String rowId, String topic, String category, String source,
+			String createdTime, long appliedCount) throws Exception {
+		out.beginObject()
+			.field("id", rowId)
+			.field("topic", topic)
+			.field("category", category)
+			.field("source", source)
+			.field("createdTime", createdTime)
+			.field("appliedCount", appliedCount)
+			.field("status", appliedCount > 0 ? "APPLIED" : "PENDING")
+			.endObject();
+	}
+
+	// GET /api/bootstrap?limit=
+	// Everything the first page load needs: dashboard stats, the oldest pending learnings, and the
+	// first page of both list sections. Both tables are read in keyset pages; only the rows that
+	// are written out are kept, so memory does not grow with the user's history. The first Learning
+	// page is read on QUERY_POOL while the applied counts are scanned, and held until they are in.
+	private void handleBootstrap(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		int limit = 20;
+		String limitParam = request.getParameter("limit");
+		if (limitParam != null) {
+			try {
+				limit = Math.max(1, Math.min(100, Integer.parseInt(limitParam)));
+			} catch (NumberFormatException e) {
+				sendError(response, 400, "Invalid limit");
+				return;
+			}
+		}
+		Long userId = currentUserId(request);
+		if (userId == null) {
+			sendError(response, 401, "Sign in required");
+			return;
+		}
+
+		try {
+			Future<ArrayList<ZCRowObject>> firstPage = submitQuery(Q_LEARNINGS_PAGE.bind().bind(0L).bind(userId).query());
+			LongIntMap appliedCountByLearningId;
+			try {
+				appliedCountByLearningId = countAppliedByLearningId(userId);
+			} catch (Exception e) {
+				firstPage.cancel(true);
+				throw e;
+			}
+
+			// Pages are oldest first, so the first pending rows are also the dashboard focus items
+			List<ZCRowObject> pendingRows = new ArrayList<ZCRowObject>();
+			List<ZCRowObject> appliedRows = new ArrayList<ZCRowObject>();
+			long total = 0;
+			long applied = 0;
+			long cursor = 0;
+			ArrayList<ZCRowObject> rows = await(firstPage, HEDGED_READS.timeoutMillis());
+			while (true) {
+				if (rows == null || rows.isEmpty()) break;
+				for (ZCRowObject row : rows) {
+					long id = longColumn(row, "Learning", "ROWID");
+					total++;
+					if (id > 0 && appliedCountByLearningId.get(id) > 0) {
+						applied++;
+						if (appliedRows.size() < limit) appliedRows.add(row);
+					} else if (pendingRows.size() < Math.max(limit, 3)) {
+						pendingRows.add(row);
+					}
+					cursor = Math.max(cursor, id);
+				}
+				if (rows.size() < PAGE_SIZE) break;
+				rows = await(startRead(Q_LEARNINGS_PAGE.bind().bind(cursor).bind(userId).query()));
+			}
+			long pending = total - applied;
+
+			ResponseWriter out = openJson(response, 200);
+			out.beginObject();
+			out.name("stats").beginObject()
+				.field("total", total)
+				.field("applied", applied)
+				.field("pending", pending)
+				.field("progress", total > 0 ? Math.round(applied * 100.0 / total) : 0)
+				.endObject();
+			writeBootstrapSection(out, "focus", pendingRows, appliedCountByLearningId, 3, -1);
+			writeBootstrapSection(out, "needsApplication", pendingRows, appliedCountByLearningId, limit, pending);
+			writeBootstrapSection(out, "applied", appliedRows, appliedCountByLearningId, limit, applied);
+			out.endObject();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleBootstrap: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to load dashboard: " + e.getMessage());
+		}
+	}
+
+	// Writes up to max rows; sections with a total are objects with items, focus is a bare array
+	private void writeBootstrapSection(ResponseWriter out, String name, List<ZCRowObject> rows, LongIntMap counts,
+			int max, long total) throws Exception {
+		out.name(name);
+		if (total >= 0) out.beginObject().field("total", total).name("items");
+		out.beginArray();
+		for (int i = 0; i < rows.size() && i < max; i++) {
+			ZCRowObject row = rows.get(i);
+			long id = longColumn(row, "Learning", "ROWID");
+			writeLearningSummary(out,
+				safeString(row.get("Learning", "ROWID")),
+				safeString(row.get("Learning", "topic")),
+				safeString(row.get("Learning", "category")),
+				safeString(row.get("Learning", "source")),
+				safeString(row.get("Learning", "CREATEDTIME")),
+				id > 0 ? counts.get(id) : 0L);
+		}
+		out.endArray();
+		if (total >= 0) out.endObject();
+	}
+
+	// POST /api/learning
+	private void handlePostLearning(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		try {
+			byte[] body = readRequestBody(request, response);
+			if (body == null) return;
+			String[] fields;
+			try {
+				fields = readJsonFields(request, body, "topic", "category", "source");
+			} catch (Exception e) {
+				sendError(response, 400, "Invalid JSON body");
+				return;
+			}
+
+			String topic = fields[0];
+			String category = fields[1];
+			String source = fields[2];
+
+			if (topic == null || topic.trim().isEmpty() || category == null || category.trim().isEmpty()) {
+				sendError(response, 400, "topic and category are required");
+				return;
+			}
+
+			Long userId = currentUserId(request);
+			long key = DuplicateIndex.key(topic, category);
+			if (userId != null) {
+				ZCRowObject existing = findDuplicate(userId, key, topic, category);
+				if (existing != null) {
+					respondDuplicate(request, response, existing, source);
+					return;
+				}
+			}
+
+			ZCTable table = table("Learning");
+			ZCRowObject row = ZCRowObject.getInstance();
+			row.set("topic", topic.trim());
+			row.set("category", category.trim());
+			if (source != null && !source.trim().isEmpty()) {
+				row.set("source", source.trim());
+			}
+			if (SOFT_DELETE) row.set("deleted", false);
+
+			ZCRowObject insertedRow = insertRow(table, row);
+			String rowId = safeString(insertedRow.get("ROWID"));
+			if (userId != null && parseRowId(rowId) > 0) DUPLICATE_INDEX.add(userId, key, parseRowId(rowId));
+
+			ResponseWriter out = openJson(response, 201);
+			out.beginObject()
+				.field("id", rowId)
+				.field("topic", topic.trim())
+				.field("category", category.trim())
+				.field("source", source != null ? source.trim() : "")
+				.endObject();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handlePostLearning: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to create learning: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The caller's live learning with the same normalized topic and category, or null.
+	 * The index only nominates a candidate; the row is read back so a learning deleted through
+	 * another instance, or a hash collision, never blocks a create.
+	 */
+	private ZCRowObject findDuplicate(long userId, long key, String topic, String category) throws Exception {
+		long candidate = DUPLICATE_INDEX.lookup(userId, key);
+		if (candidate == DuplicateIndex.NOT_LOADED) {
+			loadDuplicateIndex(userId);
+			candidate = DUPLICATE_INDEX.lookup(userId, key);
+		}
+		if (candidate <= 0) return null;
+
+		ArrayList<ZCRowObject> rows = executeQuery(Q_LEARNING.bind().bind(candidate).query());
+		if (rows == null || rows.isEmpty()) {
+			DUPLICATE_INDEX.remove(userId, candidate);
+			return null;
+		}
+		ZCRowObject row = rows.get(0);
+		boolean same = DuplicateIndex.normalize(topic).equals(DuplicateIndex.normalize(safeString(row.get("Learning", "topic"))))
+			&& DuplicateIndex.normalize(category).equals(DuplicateIndex.normalize(safeString(row.get("Learning", "category"))));
+		return same ? row : null;
+	}
+
+	// One keyset scan of the caller's learnings; where duplicates already exist, the oldest is indexed
+	private void loadDuplicateIndex(long userId) throws Exception {
+		long generation = DUPLICATE_INDEX.generation(userId);
+		HashMap<Long, Long> idByKey = new HashMap<Long, Long>();
+		long cursor = 0;
+		while (true) {
+			ArrayList<ZCRowObject> rows = executeQuery(Q_DUPLICATE_INDEX_PAGE.bind().bind(cursor).query());
+			if (rows == null || rows.isEmpty()) break;
+			for (ZCRowObject row : rows) {
+				long id = longColumn(row, "Learning", "ROWID");
+				if (id <= 0) continue;
+				idByKey.putIfAbsent(DuplicateIndex.key(safeString(row.get("Learning", "topic")),
+					safeString(row.get("Learning", "category"))), id);
+				cursor = Math.max(cursor, id);
+			}
+			if (rows.size() < PAGE_SIZE) break;
+		}
+		DUPLICATE_INDEX.load(userId, generation, idByKey);
+	}
+
+	// 409 with the existing id, or with ?merge=true, 200 with the existing learning after filling in a missing source
+	private void respondDuplicate(HttpServletRequest request, HttpServletResponse response, ZCRowObject existing, String source)
+			throws Exception {
+		String id = safeString(existing.get("Learning", "ROWID"));
+		String existingSource = safeString(existing.get("Learning", "source"));
+		if (!"true".equalsIgnoreCase(request.getParameter("merge"))) {
+			ResponseWriter out = openJson(response, 409);
+			out.beginObject()
+				.field("error", "A learning with this topic and category already exists")
+				.field("id", id)
+				.endObject();
+			out.close();
+			return;
+		}
+
+		boolean updated = false;
+		if (existingSource.isEmpty() && source != null && !source.trim().isEmpty()) {
+			ZCRowObject row = ZCRowObject.getInstance();
+			row.set("ROWID", parseRowId(id));
+			row.set("source", source.trim());
+			updateRows(table("Learning"), Collections.singletonList(row));
+			existingSource = source.trim();
+			updated = true;
+		}
+
+		ResponseWriter out = openJson(response, 200);
+		out.beginObject()
+			.field("id", id)
+			.field("topic", safeString(existing.get("Learning", "topic")))
+			.field("category", safeString(existing.get("Learning", "category")))
+			.field("source", existingSource)
+			.field("merged", true)
+			.field("updated", updated)
+			.endObject();
+		out.close();
+	}
+
+	// GET /api/learning/{id}
+	private void handleGetLearningById(HttpServletRequest request, HttpServletResponse response, String learningId) throws Exception {
+		Long learningIdLong;
+		try {
+			learningIdLong = Long.parseLong(learningId);
+		} catch (NumberFormatException e) {
+			sendError(response, 400, "Invalid learning ID");
+			return;
+		}
+		int previewChars = previewParam(request, response);
+		if (previewChars < 0) return;
+
+		// With hedging on, the preview and the count are read alongside the learning. A 404, timeout or
+		// error cancels whichever of them was not awaited; without hedging they then never run.
+		HedgedReads.Read<ArrayList<ZCRowObject>> learningRead = startRead(Q_LEARNING.bind().bind(learningIdLong).query());
+		HedgedReads.Read<ArrayList<ZCRowObject>> appliedRead = startRead(appliedPageQuery(learningIdLong, -1, APPLIED_PREVIEW_SIZE));
+		HedgedReads.Read<ArrayList<ZCRowObject>> countRead = startRead(Q_APPLIED_COUNT.bind().bind(learningIdLong).query());
+		try {
+			ArrayList<ZCRowObject> rows = await(learningRead);
+
+			if (rows == null || rows.isEmpty()) {
+				sendError(response, 404, "Learning not found");
+				return;
+			}
+
+			ZCRowObject learningRow = rows.get(0);
+			String rowId = safeString(learningRow.get("Learning", "ROWID"));
+			String topic = safeString(learningRow.get("Learning", "topic"));
+			String category = safeString(learningRow.get("Learning", "category"));
+			String source = safeString(learningRow.get("Learning", "source"));
+			String createdTime = safeString(learningRow.get("Learning", "CREATEDTIME"));
+
+			ArrayList<ZCRowObject> appliedRows = await(appliedRead);
+			long appliedCount = aggregateValue(await(countRead), TABLE_APPLICATION);
+			String status = appliedCount > 0 ? "APPLIED" : "PENDING";
+
+			ResponseWriter out = openJson(response, 200);
+			out.beginObject();
+			out.name("learning").beginObject()
+				.field("id", rowId)
+				.field("topic", topic)
+				.field("category", category)
+				.field("source", source)
+				.field("createdTime", createdTime)
+				.field("appliedCount", appliedCount)
+				.field("status", status)
+				.endObject();
+			writeAppliedPage(out, "appliedSkills", "appliedNextCursor", appliedRows, APPLIED_PREVIEW_SIZE, previewChars);
+			out.endObject();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleGetLearningById: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to fetch learning detail: " + e.getMessage());
+		} finally {
+			appliedRead.cancel();
+			countRead.cancel();
+		}
+	}
+
+	// GET /api/learning/{id}/applied?after=&limit=&preview=
+	// Applied skills newest first. after is the nextCursor of the previous page (or of the detail view's
+	// appliedNextCursor); nextCursor is null on the last page.
+	private void handleGetAppliedPage(HttpServletRequest request, HttpServletResponse response, String learningId) throws Exception {
+		long learningIdLong = parseRowId(learningId);
+		if (learningIdLong < 0) {
+			sendError(response, 400, "Invalid learning ID");
+			return;
+		}
+		long after = -1;
+		String afterParam = request.getParameter("after");
+		if (afterParam != null && !afterParam.isEmpty()) {
+			after = parseRowId(afterParam);
+			if (after < 0) {
+				sendError(response, 400, "Invalid cursor");
+				return;
+			}
+		}
+		int limit = APPLIED_PREVIEW_SIZE;
+		String limitParam = request.getParameter("limit");
+		if (limitParam != null) {
+			try {
+				limit = Math.max(1, Math.min(APPLIED_MAX_PAGE, Integer.parseInt(limitParam)));
+			} catch (NumberFormatException e) {
+				sendError(response, 400, "Invalid limit");
+				return;
+			}
+		}
+		int previewChars = previewParam(request, response);
+		if (previewChars < 0) return;
+
+		HedgedReads.Read<ArrayList<ZCRowObject>> learningRead = startRead(Q_LEARNING_EXISTS.bind().bind(learningIdLong).query());
+		HedgedReads.Read<ArrayList<ZCRowObject>> appliedRead = startRead(appliedPageQuery(learningIdLong, after, limit));
+		try {
+			ArrayList<ZCRowObject> rows = await(learningRead);
+			if (rows == null || rows.isEmpty()) {
+				sendError(response, 404, "Learning not found");
+				return;
+			}
+			ArrayList<ZCRowObject> appliedRows = await(appliedRead);
+
+			ResponseWriter out = openJson(response, 200);
+			out.beginObject();
+			writeAppliedPage(out, "items", "nextCursor", appliedRows, limit, previewChars);
+			out.endObject();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleGetAppliedPage: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to fetch applied skills: " + e.getMessage());
+		} finally {
+			appliedRead.cancel();
+		}
+	}
+
+	// One row past limit is read so the last page is known without a count
+	private ZcqlTemplate.Query appliedPageQuery(long learningId, long after, int limit) {
+		return after >= 0
+			? Q_APPLIED_PAGE_AFTER.bind().bind(learningId).bind(after).bind(limit + 1).query()
+			: Q_APPLIED_PAGE.bind().bind(learningId).bind(limit + 1).query();
+	}
+
+	// Writes up to limit rows as the named array, then the cursor field: the last written id, or null when no more rows
+	private void writeAppliedPage(ResponseWriter out, String itemsField, String cursorField, ArrayList<ZCRowObject> rows,
+			int limit, int previewChars) throws Exception {
+		int n = rows != null ? Math.min(rows.size(), limit) : 0;
+		out.name(itemsField).beginArray();
+		for (int i = 0; i < n; i++) {
+			writeAppliedSkill(out, rows.get(i), previewChars);
+		}
+		out.endArray();
+		out.name(cursorField);
+		if (rows != null && rows.size() > limit) {
+			out.value(safeString(rows.get(limit - 1).get(TABLE_APPLICATION, "ROWID")));
+		} else {
+			out.value((String) null);
+		}
+	}
+
+	// With previewChars > 0, notes and applied_action are cut to that many code points, and the full lengths tell
+	// the client whether GET /api/applied/{id} has more
+	private void writeAppliedSkill(ResponseWriter out, ZCRowObject appliedRow, int previewChars) throws Exception {
+		String notes = safeString(appliedRow.get(TABLE_APPLICATION, "notes"));
+		String appliedAction = safeString(appliedRow.get(TABLE_APPLICATION, "applied_action"));
+		out.beginObject()
+			.field("id", safeString(appliedRow.get(TABLE_APPLICATION, "ROWID")))
+			.field("type", safeString(appliedRow.get(TABLE_APPLICATION, "type")));
+		if (previewChars > 0) {
+			String notesPreview = truncateCodePoints(notes, previewChars);
+			String actionPreview = truncateCodePoints(appliedAction, previewChars);
+			out.field("notes", notesPreview)
+				.field("applied_action", actionPreview)
+				.field("truncated", notesPreview.length() < notes.length() || actionPreview.length() < appliedAction.length())
+				.field("notesLength", notes.codePointCount(0, notes.length()))
+				.field("appliedActionLength", appliedAction.codePointCount(0, appliedAction.length()));
+		} else {
+			out.field("notes", notes)
+				.field("applied_action", appliedAction);
+		}
+		out.field("createdTime", safeString(appliedRow.get(TABLE_APPLICATION, "CREATEDTIME")))
+			.endObject();
+	}
+
+	// At most max code points of value, never splitting a surrogate pair
+	private static String truncateCodePoints(String value, int max) {
+		if (value.length() <= max || value.codePointCount(0, value.length()) <= max) return value;
+		return value.substring(0, value.offsetByCodePoints(0, max));
+	}
+
+	// ?preview=<n> asks for notes and applied_action cut to n code points; 0 when absent, -1 once a 400 was sent
+	private int previewParam(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		String param = request.getParameter("preview");
+		if (param == null || param.isEmpty()) return 0;
+		int chars;
+		try {
+			chars = Integer.parseInt(param);
+		} catch (NumberFormatException e) {
+			chars = 0;
+		}
+		if (chars <= 0) {
+			sendError(response, 400, "Invalid preview");
+			return -1;
+		}
+		return Math.min(chars, PREVIEW_MAX_CHARS);
+	}
+
+	// GET /api/applied/{id}
+	// One applied skill with its full notes and applied_action, for previews marked truncated
+	private void handleGetAppliedSkill(HttpServletRequest request, HttpServletResponse response, String appliedId) throws Exception {
+		long appliedIdLong = parseRowId(appliedId);
+		if (appliedIdLong < 0) {
+			sendError(response, 400, "Invalid applied skill ID");
+			return;
+		}
+		Long userId = currentUserId(request);
+		if (userId == null) {
+			sendError(response, 401, "Sign in required");
+			return;
+		}
+
+		try {
+			// Another user's record is answered like a missing one
+			ArrayList<ZCRowObject> rows = await(startRead(Q_APPLIED.bind().bind(appliedIdLong).bind(userId).query()));
+			if (rows == null || rows.isEmpty()) {
+				sendError(response, 404, "Applied skill not found");
+				return;
+			}
+
+			ZCRowObject row = rows.get(0);
+			ResponseWriter out = openJson(response, 200);
+			out.beginObject()
+				.field("id", safeString(row.get(TABLE_APPLICATION, "ROWID")))
+				.field("learningId", safeString(row.get(TABLE_APPLICATION, "learning_id")))
+				.field("type", safeString(row.get(TABLE_APPLICATION, "type")))
+				.field("notes", safeString(row.get(TABLE_APPLICATION, "notes")))
+				.field("applied_action", safeString(row.get(TABLE_APPLICATION, "applied_action")))
+				.field("createdTime", safeString(row.get(TABLE_APPLICATION, "CREATEDTIME")))
+				.endObject();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleGetAppliedSkill: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to fetch applied skill: " + e.getMessage());
+		}
+	}
+
+	// First value of a one-row aggregate such as COUNT(ROWID); the column key it comes back under is not relied on
+	private long aggregateValue(ArrayList<ZCRowObject> rows, String table) {
+		if (rows == null || rows.isEmpty()) return 0;
+		Object columns = rows.get(0).get(table);
+		if (columns instanceof Map && !((Map<?, ?>) columns).isEmpty()) {
+			return Math.max(0, parseRowId(safeString(((Map<?, ?>) columns).values().iterator().next())));
+		}
+		return 0;
+	}
+
+
+	// POST /api/learning/{id}/applied
+	private void handlePostAppliedSkill(HttpServletRequest request, HttpServletResponse response, String learningId) throws Exception {
+		Long learningIdLong;
+		try {
+			learningIdLong = Long.parseLong(learningId);
+		} catch (NumberFormatException e) {
+			sendError(response, 400, "Invalid learning ID");
+			return;
+		}
+
+		try {
+			ArrayList<ZCRowObject> validateRows = executeQuery(Q_LEARNING_EXISTS.bind().bind(learningIdLong).query());
+
+			if (validateRows == null || validateRows.isEmpty()) {
+				sendError(response, 404, "Learning not found");
+				return;
+			}
+
+			byte[] body = readRequestBody(request, response);
+			if (body == null) return;
+			String[] fields;
+			try {
+				fields = readJsonFields(request, body, "type", "notes", "applied_action");
+			} catch (Exception e) {
+				sendError(response, 400, "Invalid JSON body");
+				return;
+			}
+
+			String type = fields[0];
+			String notes = fields[1];
+			String appliedAction = fields[2];
+
+			if (type == null || type.trim().isEmpty()) {
+				sendError(response, 400, "type is required");
+				return;
+			}
+
+			ZCTable table = table(TABLE_APPLICATION);
+			ZCRowObject row = ZCRowObject.getInstance();
+			row.set("learning_id", learningIdLong);
+			row.set("type", type.trim());
+			if (notes != null && !notes.trim().isEmpty()) {
+				row.set("notes", notes.trim());
+			}
+			if (appliedAction != null && !appliedAction.trim().isEmpty()) {
+				row.set("applied_action", appliedAction.trim());
+			}
+
+			// Full buffer falls back to a direct insert rather than rejecting the request
+			String provisionalId = APPLIED_WRITE_BEHIND != null ? APPLIED_WRITE_BEHIND.offer(currentUserId(request), row) : null;
+			String rowId = provisionalId != null ? provisionalId : safeString(insertRow(table, row).get("ROWID"));
+
+			ResponseWriter out = openJson(response, provisionalId != null ? 202 : 201);
+			out.beginObject()
+				.field("id", rowId);
+			if (provisionalId != null) out.field("provisional", true);
+			out.field("learningId", learningId)
+				.field("type", type.trim())
+				.field("notes", notes != null ? notes.trim() : "")
+				.field("applied_action", appliedAction != null ? appliedAction.trim() : "")
+				.endObject();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handlePostAppliedSkill: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to add applied skill: " + e.getMessage());
+		}
+	}
+
+	// DELETE /api/learning/{id}
+	private void handleDeleteLearning(HttpServletRequest request, HttpServletResponse response, String learningId) throws Exception {
+		Long learningIdLong;
+		try {
+			learningIdLong = Long.parseLong(learningId);
+		} catch (NumberFormatException e) {
+			sendError(response, 400, "Invalid learning ID");
+			return;
+		}
+
+		try {
+			ArrayList<ZCRowObject> validateRows = executeQuery(Q_LEARNING_EXISTS.bind().bind(learningIdLong).query());
+
+			if (validateRows == null || validateRows.isEmpty()) {
+				sendError(response, 404, "Learning not found");
+				return;
+			}
+
+			Long userId = currentUserId(request);
+			if (userId != null) DUPLICATE_INDEX.remove(userId, learningIdLong);
+
+			if (SOFT_DELETE) {
+				executeQuery(Q_TOMBSTONE_LEARNING.bind().bind(learningIdLong).query());
+				PurgeWorker.Status purge = PURGE_WORKER.enqueue(learningIdLong);
+
+				ResponseWriter out = openJson(response, 202);
+				out.beginObject().field("success", true).field("purge", purge.state.name()).endObject();
+				out.close();
+				return;
+			}
+
+			executeQuery(Q_DELETE_APPLIED_OF.bind().bind(learningIdLong).query());
+			executeQuery(Q_DELETE_LEARNING.bind().bind(learningIdLong).query());
+
+			ResponseWriter out = openJson(response, 200);
+			out.beginObject().field("success", true).endObject();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleDeleteLearning: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to delete learning: " + e.getMessage());
+		}
+	}
+
+	// POST /api/learning/bulk-delete
+	// Body: { "ids": [...] }. Ids are processed in chunks of BULK_DELETE_CHUNK, each costing one
+	// IN-query to confirm the caller created the rows plus the chunked deletes, so the
+	// number of Data Store calls grows with chunks rather than with ids.
+	private void handleBulkDeleteLearning(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		byte[] body = readRequestBody(request, response);
+		if (body == null) return;
+		List<String> ids;
+		try {
+			ids = readJsonArrayField(request, body, "ids");
+		} catch (Exception e) {
+			sendError(response, 400, "Invalid JSON body");
+			return;
+		}
+		if (ids == null || ids.isEmpty()) {
+			sendError(response, 400, "ids is required");
+			return;
+		}
+		if (ids.size() > BULK_DELETE_MAX_IDS) {
+			sendError(response, 400, "At most " + BULK_DELETE_MAX_IDS + " ids per request");
+			return;
+		}
+		Long userId = currentUserId(request);
+		if (userId == null) {
+			sendError(response, 401, "Sign in required");
+			return;
+		}
+
+		// Result per distinct requested id, in request order
+		Map<String, String> results = new LinkedHashMap<String, String>();
+		List<Long> valid = new ArrayList<Long>();
+		for (String id : ids) {
+			if (results.containsKey(id)) continue;
+			long value = parseRowId(id);
+			if (value <= 0) {
+				results.put(id, "invalid");
+			} else {
+				results.put(id, "not_found");
+				valid.add(value);
+			}
+		}
 
-	private String escapeJson(String value) {
-		if (value == null) return "";
-		return value.replace("\\", "\\\\")
-			.replace("\"", "\\\"")
-			.replace("\n", "\\n")
-			.replace("\r", "\\r")
-			.replace("\t", "\\t");
-	}
+		try {
+			for (int from = 0; from < valid.size(); from += BULK_DELETE_CHUNK) {
+				List<Long> chunk = valid.subList(from, Math.min(from + BULK_DELETE_CHUNK, valid.size()));
+				boolean more = from + BULK_DELETE_CHUNK < valid.size();
 
-	private String escapeZcql(String value) {
-		if (value == null) return "";
-		return value.replace("'", "\\'");
-	}
+				ArrayList<ZCRowObject> owned = executeChunk(Q_LEARNINGS_EXIST.bind().bind(chunk).bind(userId).query(), more);
+				if (owned == null || owned.isEmpty()) continue;
+
+				List<Long> found = new ArrayList<Long>(owned.size());
+				for (ZCRowObject row : owned) {
+					long id = parseRowId(safeString(row.get("Learning", "ROWID")));
+					if (id <= 0) continue;
+					found.add(id);
+				}
+				if (found.isEmpty()) continue;
+				for (Long id : found) {
+					DUPLICATE_INDEX.remove(userId, id);
+				}
+
+				try {
+					if (SOFT_DELETE) {
+						executeChunk(Q_TOMBSTONE_LEARNINGS.bind().bind(found).query(), more);
+						for (Long id : found) {
+							PURGE_WORKER.enqueue(id);
+						}
+					} else {
+						executeChunk(Q_DELETE_APPLIED_OF_IN.bind().bind(found).query(), more);
+						executeChunk(Q_DELETE_LEARNINGS.bind().bind(found).query(), more);
+					}
+					String outcome = SOFT_DELETE ? "queued" : "deleted";
+					for (Long id : found) {
+						markBulkResult(results, id, outcome);
+					}
+				} catch (Exception e) {
+					LOGGER.log(Level.SEVERE, "Bulk delete chunk failed: " + e.getMessage(), e);
+					for (Long id : found) {
+						markBulkResult(results, id, "failed");
+					}
+				}
+			}
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleBulkDeleteLearning: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to delete learnings: " + e.getMessage());
+			return;
+		}
 
-	private String readRequestBody(HttpServletRequest request) throws Exception {
-		BufferedReader reader = request.getReader();
-		StringBuilder body = new StringBuilder();
-		String line;
-		while ((line = reader.readLine()) != null) {
-			body.append(line);
+		ResponseWriter out = openJson(response, 200);
+		out.beginObject().name("results").beginArray();
+		for (Map.Entry<String, String> result : results.entrySet()) {
+			out.beginObject().field("id", result.getKey()).field("status", result.getValue()).endObject();
 		}
-		return body.toString();
+		out.endArray().endObject();
+		out.close();
 	}
 
-	private String safeString(Object val) {
-		if (val == null) return "";
-		String s = String.valueOf(val);
-		return "null".equals(s) ? "" : s;
+	// Requested ids may differ textually from the canonical ROWID (e.g. leading zeros)
+	private void markBulkResult(Map<String, String> results, long id, String outcome) {
+		String key = String.valueOf(id);
+		if (results.containsKey(key)) {
+			results.put(key, outcome);
+			return;
+		}
+		for (Map.Entry<String, String> entry : results.entrySet()) {
+			if (parseRowId(entry.getKey()) == id) entry.setValue(outcome);
+		}
 	}
 
-	// GET /api/learning
-	private void handleGetLearning(HttpServletRequest request, HttpServletResponse response) throws Exception {
+	// GET /api/learning/{id}/purge
+	private void handleGetPurgeStatus(HttpServletRequest request, HttpServletResponse response, String learningId) throws Exception {
+		long learningIdLong;
 		try {
-			ArrayList<ZCRowObject> rows = ZCQL.getInstance().executeQuery(
-				"SELECT ROWID, topic, category, source, CREATEDTIME FROM Learning"
-			);
+			learningIdLong = Long.parseLong(learningId);
+		} catch (NumberFormatException e) {
+			sendError(response, 400, "Invalid learning ID");
+			return;
+		}
+		if (!SOFT_DELETE) {
+			sendError(response, 404, "Soft delete is not enabled");
+			return;
+		}
 
-			// Count applied skills per learning_id so status is accurate
-			Map<Long, Long> appliedCountByLearningId = new HashMap<Long, Long>();
-			ArrayList<ZCRowObject> allApplied = ZCQL.getInstance().executeQuery(
-				"SELECT learning_id FROM " + TABLE_APPLICATION
-			);
-			if (allApplied != null) {
-				for (ZCRowObject ar : allApplied) {
-					Object lid = ar.get(TABLE_APPLICATION, "learning_id");
-					if (lid != null) {
-						try {
-							Long learningId = Long.parseLong(String.valueOf(lid));
-							Long prev = appliedCountByLearningId.get(learningId);
-							appliedCountByLearningId.put(learningId, (prev != null ? prev : 0L) + 1L);
-						} catch (NumberFormatException e) {
-							/* ignore invalid learning_id */
-						}
-					}
+		try {
+			PurgeWorker.Status status = PURGE_WORKER.status(learningIdLong);
+			if (status == null) {
+				// Not tracked here: either purged already, still live, or orphaned by another instance
+				ArrayList<ZCRowObject> rows = executeQuery(Q_LEARNING_DELETED.bind().bind(learningIdLong).query());
+				if (rows == null || rows.isEmpty()) {
+					ResponseWriter out = openJson(response, 200);
+					out.beginObject().field("id", learningId).field("state", PurgeWorker.State.DONE.name()).endObject();
+					out.close();
+					return;
+				}
+				if (!"true".equalsIgnoreCase(safeString(rows.get(0).get("Learning", "deleted")))) {
+					sendError(response, 404, "Learning is not deleted");
+					return;
 				}
+				status = PURGE_WORKER.enqueue(learningIdLong);
 			}
 
-			StringBuilder json = new StringBuilder("[");
-			boolean first = true;
+			ResponseWriter out = openJson(response, 200);
+			out.beginObject()
+				.field("id", learningId)
+				.field("state", status.state.name())
+				.field("attempts", status.attempts)
+				.field("childrenDeleted", status.childrenDeleted)
+				.field("error", status.error)
+				.endObject();
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleGetPurgeStatus: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to fetch purge status: " + e.getMessage());
+		}
+	}
+
+	// GET /api/export?format=ndjson|csv
+	// Pages through Learning then AppliedSkill by ROWID (keyset) and writes each
+	// row as soon as its page arrives, so memory is bounded by one page.
+	private void handleExport(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		String format = request.getParameter("format");
+		if (format == null || format.isEmpty()) format = "ndjson";
+		boolean csv = "csv".equals(format);
+		if (!csv && !"ndjson".equals(format)) {
+			sendError(response, 400, "format must be ndjson or csv");
+			return;
+		}
+		Long userId = currentUserId(request);
+		if (userId == null) {
+			sendError(response, 401, "Sign in required");
+			return;
+		}
+
+		PrintWriter csvOut = null;
+		ResponseWriter jsonOut = null;
+		if (csv) {
+			response.setStatus(200);
+			response.setCharacterEncoding("UTF-8");
+			response.setContentType("text/csv");
+			response.setHeader("Content-Disposition", "attachment; filename=\"skillbridge-export.csv\"");
+			csvOut = response.getWriter();
+			csvOut.write("record,id,learning_id,topic,category,source,type,notes,applied_action,createdTime\n");
+		} else {
+			response.setHeader("Content-Disposition", "attachment; filename=\"skillbridge-export.ndjson\"");
+			jsonOut = openJson(response, 200, "application/x-ndjson");
+		}
 
-			if (rows != null) {
+		try {
+			long cursor = 0;
+			while (true) {
+				ArrayList<ZCRowObject> rows = executeQuery(Q_EXPORT_LEARNINGS.bind().bind(cursor).bind(userId).query());
+				if (rows == null || rows.isEmpty()) break;
 				for (ZCRowObject row : rows) {
 					String rowId = safeString(row.get("Learning", "ROWID"));
 					String topic = safeString(row.get("Learning", "topic"));
 					String category = safeString(row.get("Learning", "category"));
 					String source = safeString(row.get("Learning", "source"));
 					String createdTime = safeString(row.get("Learning", "CREATEDTIME"));
-
-					long appliedCount = 0;
-					try {
-						Long lid = Long.parseLong(rowId);
-						Long count = appliedCountByLearningId.get(lid);
-						appliedCount = (count != null ? count : 0L);
-					} catch (NumberFormatException e) {
-						/* ignore */
+					if (csv) {
+						csvOut.write("learning," + escapeCsv(rowId) + ",," + escapeCsv(topic) + "," + escapeCsv(category) + ","
+							+ escapeCsv(source) + ",,,," + escapeCsv(createdTime) + "\n");
+					} else {
+						jsonOut.beginObject()
+							.field("record", "learning")
+							.field("id", rowId)
+							.field("topic", topic)
+							.field("category", category)
+							.field("source", source)
+							.field("createdTime", createdTime)
+							.endObject();
 					}
-
-					String status = appliedCount > 0 ? "APPLIED" : "PENDING";
-
-					if (!first) json.append(",");
-					first = false;
-
-					json.append("{");
-					json.append("\"id\":\"").append(escapeJson(rowId)).append("\",");
-					json.append("\"topic\":\"").append(escapeJson(topic)).append("\",");
-					json.append("\"category\":\"").append(escapeJson(category)).append("\",");
-					json.append("\"source\":\"").append(escapeJson(source)).append("\",");
-					json.append("\"createdTime\":\"").append(escapeJson(createdTime)).append("\",");
-					json.append("\"appliedCount\":").append(appliedCount).append(",");
-					json.append("\"status\":\"").append(status).append("\"");
-					json.append("}");
+					cursor = Math.max(cursor, parseRowId(rowId));
 				}
+				if (csv) csvOut.flush(); else jsonOut.flush();
+				if (rows.size() < PAGE_SIZE) break;
 			}
 
-			json.append("]");
-			sendJson(response, 200, json.toString());
+			cursor = 0;
+			while (true) {
+				ArrayList<ZCRowObject> rows = executeQuery(Q_EXPORT_APPLIED.bind().bind(cursor).bind(userId).query());
+				if (rows == null || rows.isEmpty()) break;
+				for (ZCRowObject row : rows) {
+					String rowId = safeString(row.get(TABLE_APPLICATION, "ROWID"));
+					String learningId = safeString(row.get(TABLE_APPLICATION, "learning_id"));
+					String type = safeString(row.get(TABLE_APPLICATION, "type"));
+					String notes = safeString(row.get(TABLE_APPLICATION, "notes"));
+					String appliedAction = safeString(row.get(TABLE_APPLICATION, "applied_action"));
+					String createdTime = safeString(row.get(TABLE_APPLICATION, "CREATEDTIME"));
+					if (csv) {
+						csvOut.write("applied," + escapeCsv(rowId) + "," + escapeCsv(learningId) + ",,,," + escapeCsv(type) + ","
+							+ escapeCsv(notes) + "," + escapeCsv(appliedAction) + "," + escapeCsv(createdTime) + "\n");
+					} else {
+						jsonOut.beginObject()
+							.field("record", "applied")
+							.field("id", rowId)
+							.field("learningId", learningId)
+							.field("type", type)
+							.field("notes", notes)
+							.field("applied_action", appliedAction)
+							.field("createdTime", createdTime)
+							.endObject();
+					}
+					cursor = Math.max(cursor, parseRowId(rowId));
+				}
+				if (csv) csvOut.flush(); else jsonOut.flush();
+				if (rows.size() < PAGE_SIZE) break;
+			}
 		} catch (Exception e) {
-			LOGGER.log(Level.SEVERE, "Error in handleGetLearning: " + e.getMessage(), e);
-			sendError(response, 500, "Failed to fetch learning: " + e.getMessage());
+			// Headers are already committed; the truncated stream is the only signal left
+			LOGGER.log(Level.SEVERE, "Error in handleExport: " + e.getMessage(), e);
 		}
+		if (csv) csvOut.flush(); else jsonOut.close();
 	}
 
-	// POST /api/learning
-	private void handlePostLearning(HttpServletRequest request, HttpServletResponse response) throws Exception {
+	// GET /api/analytics/timeline?bucket=week|month&category=
+	// Learnings created and skills applied per bucket, and the median time to a first application.
+	// Computed over keyset pages of both tables and cached per user until their next write.
+	private void handleTimeline(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		String bucket = request.getParameter("bucket");
+		if (bucket == null || bucket.isEmpty()) bucket = Timeline.WEEK;
+		if (!Timeline.WEEK.equals(bucket) && !Timeline.MONTH.equals(bucket)) {
+			sendError(response, 400, "bucket must be week or month");
+			return;
+		}
+		String category = request.getParameter("category");
+		if (category != null && category.trim().isEmpty()) category = null;
+		if (category != null) category = category.trim();
+		Long userId = currentUserId(request);
+		if (userId == null) {
+			sendError(response, 401, "Sign in required");
+			return;
+		}
+
 		try {
-			String body = readRequestBody(request);
-			JSONParser parser = new JSONParser();
-			JSONObject jsonData = (JSONObject) parser.parse(body);
+			String key = bucket + "\n" + (category != null ? category : "");
+			Timeline timeline = ANALYTICS_CACHE.get(userId, key);
+			response.setHeader("X-Cache", timeline != null ? "hit" : "miss");
+			if (timeline == null) {
+				long generation = ANALYTICS_CACHE.generation(userId);
+				timeline = computeTimeline(userId, bucket, category);
+				ANALYTICS_CACHE.put(userId, key, generation, timeline);
+			}
 
-			String topic = jsonData.get("topic") != null ? String.valueOf(jsonData.get("topic")) : null;
-			String category = jsonData.get("category") != null ? String.valueOf(jsonData.get("category")) : null;
-			String source = jsonData.get("source") != null ? String.valueOf(jsonData.get("source")) : null;
+			ResponseWriter out = openJson(response, 200);
+			timeline.write(out);
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleTimeline: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to compute timeline: " + e.getMessage());
+		}
+	}
 
-			if (topic == null || topic.trim().isEmpty() || category == null || category.trim().isEmpty()) {
-				sendError(response, 400, "topic and category are required");
-				return;
+	// Learnings are scanned first so applied skills of filtered-out or deleted learnings can be skipped
+	private Timeline computeTimeline(long userId, String bucket, String category) throws Exception {
+		Timeline timeline = new Timeline(bucket, category);
+		long cursor = 0;
+		while (true) {
+			ArrayList<ZCRowObject> rows = await(startRead(category != null
+				? Q_TIMELINE_LEARNINGS_IN_CATEGORY.bind().bind(cursor).bind(userId).bind(category).query()
+				: Q_TIMELINE_LEARNINGS.bind().bind(cursor).bind(userId).query()));
+			if (rows == null || rows.isEmpty()) break;
+			for (ZCRowObject row : rows) {
+				long rowId = longColumn(row, "Learning", "ROWID");
+				timeline.addLearning(rowId, safeString(row.get("Learning", "CREATEDTIME")));
+				cursor = Math.max(cursor, rowId);
 			}
+			if (rows.size() < PAGE_SIZE) break;
+		}
 
-			ZCTable table = ZCObject.getInstance().getTable("Learning");
-			ZCRowObject row = ZCRowObject.getInstance();
-			row.set("topic", topic.trim());
-			row.set("category", category.trim());
-			if (source != null && !source.trim().isEmpty()) {
-				row.set("source", source.trim());
+		cursor = 0;
+		while (true) {
+			ArrayList<ZCRowObject> rows = await(startRead(Q_TIMELINE_APPLIED.bind().bind(cursor).bind(userId).query()));
+			if (rows == null || rows.isEmpty()) break;
+			for (ZCRowObject row : rows) {
+				timeline.addApplied(longColumn(row, TABLE_APPLICATION, "learning_id"), safeString(row.get(TABLE_APPLICATION, "CREATEDTIME")));
+				cursor = Math.max(cursor, longColumn(row, TABLE_APPLICATION, "ROWID"));
 			}
+			if (rows.size() < PAGE_SIZE) break;
+		}
+		return timeline.finish();
+	}
 
-			ZCRowObject insertedRow = table.insertRow(row);
-			String rowId = safeString(insertedRow.get("ROWID"));
+	// GET /api/admin/report
+	// Progress of every user, per category, as NDJSON; only for ADMIN_USER_IDS. Queries run with admin
+	// scope so they see all creators. See AdminReport for the partitioning and the output lines.
+	private void handleAdminReport(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		Long userId = currentUserId(request);
+		if (userId == null || !ADMIN_USER_IDS.contains(userId)) {
+			sendError(response, 403, "Admin only");
+			return;
+		}
 
-			StringBuilder json = new StringBuilder("{");
-			json.append("\"id\":\"").append(escapeJson(rowId)).append("\",");
-			json.append("\"topic\":\"").append(escapeJson(topic.trim())).append("\",");
-			json.append("\"category\":\"").append(escapeJson(category.trim())).append("\",");
-			json.append("\"source\":\"").append(escapeJson(source != null ? source.trim() : "")).append("\"");
-			json.append("}");
+		long start = System.nanoTime();
+		AdminReport.Partitions partitions;
+		AdminReport report;
+		try {
+			ZCProject project = adminProject();
+			CatalystContext context = CatalystContext.capture();
+			long min = aggregateValue(executeQuery(Q_ADMIN_MIN_CREATOR.query(), project), "Learning");
+			long max = aggregateValue(executeQuery(Q_ADMIN_MAX_CREATOR.query(), project), "Learning");
+			AdminReport.PartitionScan scan = (after, upTo) -> context.call(() -> scanAdminPartition(project, after, upTo));
+			// No learnings: an empty range, so no partitions
+			partitions = new AdminReport.Partitions(ADMIN_REPORT_POOL, scan, max > 0 ? min - 1 : max, max,
+				ADMIN_REPORT_PARTITIONS, ADMIN_REPORT_PARALLELISM);
+			// The first partition is awaited before the headers, so a failing scan still gets a 500
+			report = partitions.next();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleAdminReport: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to build report: " + e.getMessage());
+			return;
+		}
 
-			sendJson(response, 201, json.toString());
+		ResponseWriter out = openJson(response, 200, "application/x-ndjson");
+		AdminReport.Summary summary = new AdminReport.Summary();
+		try {
+			for (; report != null; report = partitions.next()) report.write(out, summary);
+			summary.write(out, partitions.count(), (System.nanoTime() - start) / 1_000_000);
 		} catch (Exception e) {
-			LOGGER.log(Level.SEVERE, "Error in handlePostLearning: " + e.getMessage(), e);
-			sendError(response, 500, "Failed to create learning: " + e.getMessage());
+			// Headers are already committed; the missing summary line is the only signal left
+			partitions.cancel();
+			LOGGER.log(Level.SEVERE, "Error in handleAdminReport: " + e.getMessage(), e);
+		} finally {
+			DATA_STORE_CALLS.get()[0] += (int) summary.queries();
 		}
+		out.close();
 	}
 
-	// GET /api/learning/{id}
-	private void handleGetLearningById(HttpServletRequest request, HttpServletResponse response, String learningId) throws Exception {
-		Long learningIdLong;
-		try {
-			learningIdLong = Long.parseLong(learningId);
-		} catch (NumberFormatException e) {
-			sendError(response, 400, "Invalid learning ID");
-			return;
+	private static ZCProject adminProject() throws Exception {
+		ZCProject project = adminProject;
+		if (project == null) {
+			synchronized (ADMIN_PROJECT_LOCK) {
+				project = adminProject;
+				if (project == null) {
+					project = ZCProject.initProject("skillbridge-admin", APIConstants.ZCUserScope.ADMIN);
+					adminProject = project;
+				}
+			}
 		}
+		return project;
+	}
 
-		try {
-			ArrayList<ZCRowObject> rows = ZCQL.getInstance().executeQuery(
-				"SELECT ROWID, topic, category, source, CREATEDTIME FROM Learning WHERE ROWID = " + learningIdLong
-			);
+	// Runs on an ADMIN_REPORT_POOL worker; learnings of creators in (after, upTo] first, so their applied skills can be matched to them
+	private AdminReport scanAdminPartition(ZCProject project, long after, long upTo) throws Exception {
+		AdminReport report = new AdminReport();
+		long cursor = 0;
+		while (true) {
+			report.countQuery();
+			ArrayList<ZCRowObject> rows = Q_ADMIN_LEARNINGS.bind().bind(after).bind(upTo).bind(cursor).query().execute(project);
+			if (rows == null || rows.isEmpty()) break;
+			for (ZCRowObject row : rows) {
+				long id = longColumn(row, "Learning", "ROWID");
+				report.addLearning(id, longColumn(row, "Learning", "CREATORID"), safeString(row.get("Learning", "category")));
+				cursor = Math.max(cursor, id);
+			}
+			if (rows.size() < PAGE_SIZE) break;
+		}
 
-			if (rows == null || rows.isEmpty()) {
-				sendError(response, 404, "Learning not found");
+		cursor = 0;
+		while (true) {
+			report.countQuery();
+			ArrayList<ZCRowObject> rows = Q_ADMIN_APPLIED.bind().bind(after).bind(upTo).bind(cursor).query().execute(project);
+			if (rows == null || rows.isEmpty()) break;
+			for (ZCRowObject row : rows) {
+				report.addApplied(longColumn(row, TABLE_APPLICATION, "learning_id"));
+				cursor = Math.max(cursor, longColumn(row, TABLE_APPLICATION, "ROWID"));
+			}
+			if (rows.size() < PAGE_SIZE) break;
+		}
+		return report;
+	}
+
+	// GET /api/recommendations?k=
+	// The k pending learnings (default 3) best worth applying next; see Recommender for the scoring.
+	// Costs one keyset scan of each table plus one IN query for the sources of recent applications.
+	private void handleRecommendations(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		int k = 3;
+		String kParam = request.getParameter("k");
+		if (kParam != null && !kParam.isEmpty()) {
+			try {
+				k = Integer.parseInt(kParam);
+			} catch (NumberFormatException e) {
+				k = 0;
+			}
+			if (k < 1 || k > Recommender.MAX_K) {
+				sendError(response, 400, "k must be between 1 and " + Recommender.MAX_K);
 				return;
 			}
+		}
+		Long userId = currentUserId(request);
+		if (userId == null) {
+			sendError(response, 401, "Sign in required");
+			return;
+		}
 
-			ZCRowObject learningRow = rows.get(0);
-			String rowId = safeString(learningRow.get("Learning", "ROWID"));
-			String topic = safeString(learningRow.get("Learning", "topic"));
-			String category = safeString(learningRow.get("Learning", "category"));
-			String source = safeString(learningRow.get("Learning", "source"));
-			String createdTime = safeString(learningRow.get("Learning", "CREATEDTIME"));
+		try {
+			// Computed before the status is committed, so a failed scan can still answer 500
+			Recommender recommender = computeRecommendations(userId, k);
+			ResponseWriter out = openJson(response, 200);
+			recommender.write(out);
+			out.close();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleRecommendations: " + e.getMessage(), e);
+			sendError(response, 500, "Failed to compute recommendations: " + e.getMessage());
+		}
+	}
 
-			ArrayList<ZCRowObject> appliedRows = ZCQL.getInstance().executeQuery(
-				"SELECT ROWID, type, notes, applied_action, CREATEDTIME FROM " + TABLE_APPLICATION + " WHERE learning_id = " + learningIdLong
-			);
-
-			StringBuilder appliedJson = new StringBuilder("[");
-			boolean first = true;
-			long appliedCount = 0;
-
-			if (appliedRows != null) {
-				for (ZCRowObject appliedRow : appliedRows) {
-					appliedCount++;
-					if (!first) appliedJson.append(",");
-					first = false;
-
-					String appliedId = safeString(appliedRow.get(TABLE_APPLICATION, "ROWID"));
-					String type = safeString(appliedRow.get(TABLE_APPLICATION, "type"));
-					String notes = safeString(appliedRow.get(TABLE_APPLICATION, "notes"));
-					String appliedAction = safeString(appliedRow.get(TABLE_APPLICATION, "applied_action"));
-					String appliedCreatedTime = safeString(appliedRow.get(TABLE_APPLICATION, "CREATEDTIME"));
-
-					appliedJson.append("{");
-					appliedJson.append("\"id\":\"").append(escapeJson(appliedId)).append("\",");
-					appliedJson.append("\"type\":\"").append(escapeJson(type)).append("\",");
-					appliedJson.append("\"notes\":\"").append(escapeJson(notes)).append("\",");
-					appliedJson.append("\"applied_action\":\"").append(escapeJson(appliedAction)).append("\",");
-					appliedJson.append("\"createdTime\":\"").append(escapeJson(appliedCreatedTime)).append("\"");
-					appliedJson.append("}");
+	// Applied skills are scanned first for the set of applied learnings and the most recent applications
+	private Recommender computeRecommendations(long userId, int k) throws Exception {
+		LongIntMap appliedCounts = new LongIntMap(64);
+		// Learning ids of the last RECOMMEND_RECENT_APPLIED applications; ROWIDs ascend with time
+		long[] recent = new long[RECOMMEND_RECENT_APPLIED];
+		long appliedSeen = 0;
+		long cursor = 0;
+		while (true) {
+			ArrayList<ZCRowObject> rows = await(startRead(Q_APPLIED_LEARNING_IDS_PAGE.bind().bind(cursor).bind(userId).query()));
+			if (rows == null || rows.isEmpty()) break;
+			for (ZCRowObject row : rows) {
+				long learningId = longColumn(row, TABLE_APPLICATION, "learning_id");
+				if (learningId > 0) {
+					appliedCounts.add(learningId, 1);
+					recent[(int) (appliedSeen++ % recent.length)] = learningId;
 				}
+				cursor = Math.max(cursor, longColumn(row, TABLE_APPLICATION, "ROWID"));
 			}
-			appliedJson.append("]");
+			if (rows.size() < PAGE_SIZE) break;
+		}
 
-			String status = appliedCount > 0 ? "APPLIED" : "PENDING";
+		Recommender recommender = new Recommender(k, System.currentTimeMillis());
+		LinkedHashSet<Long> recentIds = new LinkedHashSet<Long>();
+		for (int i = 0; i < Math.min(appliedSeen, recent.length); i++) {
+			recentIds.add(recent[i]);
+		}
+		if (!recentIds.isEmpty()) {
+			ArrayList<ZCRowObject> rows = await(startRead(Q_RECOMMEND_RECENT_SOURCES.bind().bind(recentIds).bind(userId).query()));
+			if (rows != null) {
+				for (ZCRowObject row : rows) {
+					recommender.addRecentSource(safeString(row.get("Learning", "source")));
+				}
+			}
+		}
 
-			StringBuilder json = new StringBuilder("{");
-			json.append("\"learning\":{");
-			json.append("\"id\":\"").append(escapeJson(rowId)).append("\",");
-			json.append("\"topic\":\"").append(escapeJson(topic)).append("\",");
-			json.append("\"category\":\"").append(escapeJson(category)).append("\",");
-			json.append("\"source\":\"").append(escapeJson(source)).append("\",");
-			json.append("\"createdTime\":\"").append(escapeJson(createdTime)).append("\",");
-			json.append("\"appliedCount\":").append(appliedCount).append(",");
-			json.append("\"status\":\"").append(status).append("\"");
-			json.append("},");
-			json.append("\"appliedSkills\":").append(appliedJson.toString());
-			json.append("}");
-
-			sendJson(response, 200, json.toString());
-		} catch (Exception e) {
-			LOGGER.log(Level.SEVERE, "Error in handleGetLearningById: " + e.getMessage(), e);
-			sendError(response, 500, "Failed to fetch learning detail: " + e.getMessage());
+		cursor = 0;
+		while (true) {
+			ArrayList<ZCRowObject> rows = await(startRead(Q_LEARNINGS_PAGE.bind().bind(cursor).bind(userId).query()));
+			if (rows == null || rows.isEmpty()) break;
+			for (ZCRowObject row : rows) {
+				long id = longColumn(row, "Learning", "ROWID");
+				if (id <= 0) continue;
+				String category = safeString(row.get("Learning", "category"));
+				if (appliedCounts.get(id) > 0) {
+					recommender.addApplied(category);
+				} else {
+					recommender.addPending(id, safeString(row.get("Learning", "topic")), category,
+						safeString(row.get("Learning", "source")), safeString(row.get("Learning", "CREATEDTIME")));
+				}
+				cursor = Math.max(cursor, id);
+			}
+			if (rows.size() < PAGE_SIZE) break;
 		}
+		return recommender.finish();
 	}
 
-	// POST /api/learning/{id}/applied
-	private void handlePostAppliedSkill(HttpServletRequest request, HttpServletResponse response, String learningId) throws Exception {
-		Long learningIdLong;
-		try {
-			learningIdLong = Long.parseLong(learningId);
-		} catch (NumberFormatException e) {
-			sendError(response, 400, "Invalid learning ID");
+	// Reads one '\n'-terminated line into buf, dropping a trailing '\r'.
+	// Returns false at end of stream; lines longer than maxChars are truncated and flagged by length.
+	private boolean readBoundedLine(BufferedReader reader, StringBuilder buf, int maxChars) throws Exception {
+		buf.setLength(0);
+		int c;
+		boolean any = false;
+		while ((c = reader.read()) != -1) {
+			any = true;
+			if (c == '\n') break;
+			if (buf.length() <= maxChars) buf.append((char) c);
+		}
+		int len = buf.length();
+		if (len > 0 && buf.charAt(len - 1) == '\r') buf.setLength(len - 1);
+		return any;
+	}
+
+	private void addImportError(List<Long> errorLines, List<String> errorMessages, int[] errorCount, long line, String message) {
+		if (errorCount[0]++ >= IMPORT_MAX_ERRORS) return;
+		errorLines.add(line);
+		errorMessages.add(message);
+	}
+
+	// POST /api/import
+	// Body is NDJSON in the /api/export shape. Lines are parsed one at a time and buffered
+	// into insertRows batches; reading pauses while a batch is written, so the request
+	// stream is only consumed as fast as the Data Store accepts rows.
+	private void handleImport(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		// Checked before the body is read, so an anonymous upload is not consumed
+		Long userId = currentUserId(request);
+		if (userId == null) {
+			sendError(response, 401, "Sign in required");
 			return;
 		}
 
+		Map<String, Long> newIdByImportId = new HashMap<String, Long>();
+		List<ZCRowObject> learningBatch = new ArrayList<ZCRowObject>();
+		List<String> learningBatchIds = new ArrayList<String>();
+		List<ZCRowObject> appliedBatch = new ArrayList<ZCRowObject>();
+		List<String> appliedBatchParents = new ArrayList<String>();
+		List<Long> appliedBatchLines = new ArrayList<Long>();
+		List<Long> errorLines = new ArrayList<Long>();
+		List<String> errorMessages = new ArrayList<String>();
+		int[] errorCount = new int[1];
+		long lineNo = 0;
+		long learningsImported = 0;
+		long appliedImported = 0;
+		long unlinked = 0;
+
 		try {
-			ArrayList<ZCRowObject> validateRows = ZCQL.getInstance().executeQuery(
-				"SELECT ROWID FROM Learning WHERE ROWID = " + learningIdLong
-			);
+			BufferedReader reader = request.getReader();
+			StringBuilder line = new StringBuilder();
 
-			if (validateRows == null || validateRows.isEmpty()) {
-				sendError(response, 404, "Learning not found");
-				return;
-			}
+			while (true) {
+				boolean more = readBoundedLine(reader, line, IMPORT_MAX_LINE_CHARS);
+				if (more) {
+					lineNo++;
+					if (line.length() > IMPORT_MAX_LINE_CHARS) {
+						addImportError(errorLines, errorMessages, errorCount, lineNo, "line exceeds " + IMPORT_MAX_LINE_CHARS + " characters");
+					} else if (line.toString().trim().length() > 0) {
+						String[] fields;
+						try {
+							fields = readJsonFields(JSON_FACTORY.createParser(line.toString()), IMPORT_FIELDS);
+						} catch (Exception e) {
+							addImportError(errorLines, errorMessages, errorCount, lineNo, "invalid JSON");
+							continue;
+						}
+						String record = fields[0] != null ? fields[0] : "learning";
+						if ("learning".equals(record)) {
+							String topic = fields[2] != null ? fields[2].trim() : "";
+							String category = fields[3] != null ? fields[3].trim() : "";
+							String source = fields[4] != null ? fields[4].trim() : "";
+							if (topic.isEmpty() || category.isEmpty()) {
+								addImportError(errorLines, errorMessages, errorCount, lineNo, "topic and category are required");
+								continue;
+							}
+							ZCRowObject row = ZCRowObject.getInstance();
+							row.set("topic", topic);
+							row.set("category", category);
+							if (!source.isEmpty()) row.set("source", source);
+							if (SOFT_DELETE) row.set("deleted", false);
+							learningBatch.add(row);
+							learningBatchIds.add(fields[1]);
+						} else if ("applied".equals(record)) {
+							String parent = fields[5] != null ? fields[5] : "";
+							String type = fields[6] != null ? fields[6].trim() : "";
+							String notes = fields[7] != null ? fields[7].trim() : "";
+							String appliedAction = fields[8] != null ? fields[8].trim() : "";
+							if (parent.isEmpty() || type.isEmpty()) {
+								addImportError(errorLines, errorMessages, errorCount, lineNo, "learningId and type are required");
+								continue;
+							}
+							ZCRowObject row = ZCRowObject.getInstance();
+							row.set("type", type);
+							if (!notes.isEmpty()) row.set("notes", notes);
+							if (!appliedAction.isEmpty()) row.set("applied_action", appliedAction);
+							appliedBatch.add(row);
+							appliedBatchParents.add(parent);
+							appliedBatchLines.add(lineNo);
+						} else {
+							addImportError(errorLines, errorMessages, errorCount, lineNo, "unknown record type: " + record);
+						}
+					}
+				}
 
-			String body = readRequestBody(request);
-			JSONParser parser = new JSONParser();
-			JSONObject jsonData = (JSONObject) parser.parse(body);
+				boolean flushLearnings = learningBatch.size() >= IMPORT_BATCH_SIZE
+					|| (!more && !learningBatch.isEmpty())
+					|| appliedBatch.size() >= IMPORT_BATCH_SIZE;
+				if (flushLearnings && !learningBatch.isEmpty()) {
+					List<ZCRowObject> inserted = insertRows("Learning", learningBatch, more);
+					for (int i = 0; i < inserted.size() && i < learningBatchIds.size(); i++) {
+						String importId = learningBatchIds.get(i);
+						long newId = parseRowId(safeString(inserted.get(i).get("ROWID")));
+						if (importId == null || newId <= 0) continue;
+						if (newIdByImportId.size() < IMPORT_MAX_LINKED) {
+							newIdByImportId.put(importId, newId);
+						} else {
+							unlinked++;
+						}
+					}
+					learningsImported += inserted.size();
+					learningBatch.clear();
+					learningBatchIds.clear();
+				}
 
-			String type = jsonData.get("type") != null ? String.valueOf(jsonData.get("type")) : null;
-			String notes = jsonData.get("notes") != null ? String.valueOf(jsonData.get("notes")) : null;
-			String appliedAction = jsonData.get("applied_action") != null ? String.valueOf(jsonData.get("applied_action")) : null;
+				// Children go out after their parents' batch so learning_id is always resolvable
+				if (appliedBatch.size() >= IMPORT_BATCH_SIZE || (!more && !appliedBatch.isEmpty())) {
+					List<ZCRowObject> resolved = new ArrayList<ZCRowObject>(appliedBatch.size());
+					for (int i = 0; i < appliedBatch.size(); i++) {
+						Long parentId = newIdByImportId.get(appliedBatchParents.get(i));
+						if (parentId == null) {
+							addImportError(errorLines, errorMessages, errorCount, appliedBatchLines.get(i),
+								"learningId " + appliedBatchParents.get(i) + (unlinked > 0
+									? " does not match one of the first " + IMPORT_MAX_LINKED + " imported learnings"
+									: " does not match an imported learning"));
+							continue;
+						}
+						ZCRowObject row = appliedBatch.get(i);
+						row.set("learning_id", parentId);
+						resolved.add(row);
+					}
+					if (!resolved.isEmpty()) {
+						appliedImported += insertRows(TABLE_APPLICATION, resolved, more).size();
+					}
+					appliedBatch.clear();
+					appliedBatchParents.clear();
+					appliedBatchLines.clear();
+				}
 
-			if (type == null || type.trim().isEmpty()) {
-				sendError(response, 400, "type is required");
-				return;
+				if (!more) break;
 			}
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Error in handleImport at line " + lineNo + ": " + e.getMessage(), e);
+			addImportError(errorLines, errorMessages, errorCount, lineNo, "import aborted: " + e.getMessage());
+		}
+		// Imported learnings are not checked for duplicates; the index is rebuilt on the next create
+		DUPLICATE_INDEX.invalidate(userId);
 
-			ZCTable table = ZCObject.getInstance().getTable(TABLE_APPLICATION);
-			ZCRowObject row = ZCRowObject.getInstance();
-			row.set("learning_id", learningIdLong);
-			row.set("type", type.trim());
-			if (notes != null && !notes.trim().isEmpty()) {
-				row.set("notes", notes.trim());
+		ResponseWriter out = openJson(response, 200);
+		out.beginObject()
+			.field("linesRead", lineNo)
+			.field("learningsImported", learningsImported)
+			.field("appliedImported", appliedImported)
+			.field("errorCount", errorCount[0]);
+		out.name("errors").beginArray();
+		for (int i = 0; i < errorLines.size(); i++) {
+			out.beginObject().field("line", errorLines.get(i)).field("error", errorMessages.get(i)).endObject();
+		}
+		out.endArray();
+		out.endObject();
+		out.close();
+	}
+
+	// GET /api/_warmup
+	// Pays the first-request costs before real traffic arrives: SDK singletons, the Jackson parser and
+	// both response writers, the credential hash and the import parser. Nothing touches the Data Store,
+	// so a deploy hook or scheduler can call it after idle periods. Only the first call per JVM does work.
+	private void handleWarmup(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		long start = System.nanoTime();
+		boolean firstRun = !WARMED_UP.get();
+		if (firstRun) {
+			ZCQL.getInstance();
+			ZCObject.getInstance();
+			ZCUser.getInstance();
+			ZCRowObject.getInstance().set("topic", "warmup");
+
+			byte[] sample = "{\"topic\":\"warmup\",\"category\":\"warmup\",\"ids\":[\"1\",\"2\"]}".getBytes(StandardCharsets.UTF_8);
+			JsonParser parser = JSON_FACTORY.createParser(sample);
+			try {
+				while (parser.nextToken() != null) parser.getText();
+			} finally {
+				parser.close();
 			}
-			if (appliedAction != null && !appliedAction.trim().isEmpty()) {
-				row.set("applied_action", appliedAction.trim());
+			readJsonFields(JSON_FACTORY.createParser(new String(sample, StandardCharsets.UTF_8)), IMPORT_FIELDS);
+
+			ResponseWriter[] writers = {
+				new StringBuilderResponseWriter(new StringWriter()),
+				new JacksonResponseWriter(OutputStream.nullOutputStream())
+			};
+			for (ResponseWriter out : writers) {
+				out.beginArray();
+				writeLearningSummary(out, "1", "warmup", "warmup", null, "", 0);
+				out.endArray();
+				out.close();
 			}
 
-			ZCRowObject insertedRow = table.insertRow(row);
-			String rowId = safeString(insertedRow.get("ROWID"));
+			new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(sample)).toString(36);
+			AccessLog.routeTemplate("GET", "/api/learning/1/applied");
+			WARMED_UP.set(true);
+		}
 
-			StringBuilder json = new StringBuilder("{");
-			json.append("\"id\":\"").append(escapeJson(rowId)).append("\",");
-			json.append("\"learningId\":\"").append(learningId).append("\",");
-			json.append("\"type\":\"").append(escapeJson(type.trim())).append("\",");
-			json.append("\"notes\":\"").append(escapeJson(notes != null ? notes.trim() : "")).append("\",");
-			json.append("\"applied_action\":\"").append(escapeJson(appliedAction != null ? appliedAction.trim() : "")).append("\"");
-			json.append("}");
+		ResponseWriter out = openJson(response, 200);
+		out.beginObject()
+			.field("warm", true)
+			.field("firstRun", firstRun)
+			.field("tookMs", (System.nanoTime() - start) / 1_000_000)
+			.endObject();
+		out.close();
+	}
 
-			sendJson(response, 201, json.toString());
+	// GET /api/_health
+	// Readiness for synthetic monitors: a time-bounded ZCQL probe, the rolling probe latency, and what this
+	// instance has initialized. Answers 503 when the probe fails, times out or takes longer than HEALTH_SLOW_MS.
+	private void handleHealth(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		long start = System.nanoTime();
+		String error = null;
+		try {
+			await(submitQuery(Q_HEALTH_PROBE.query()), HEALTH_PROBE_TIMEOUT_MS);
+		} catch (TimeoutException e) {
+			error = "Probe timed out after " + HEALTH_PROBE_TIMEOUT_MS + " ms";
 		} catch (Exception e) {
-			LOGGER.log(Level.SEVERE, "Error in handlePostAppliedSkill: " + e.getMessage(), e);
-			sendError(response, 500, "Failed to add applied skill: " + e.getMessage());
+			error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
 		}
-	}
+		long latencyNanos = System.nanoTime() - start;
+		PROBE_LATENCY.record(latencyNanos);
+		String status = error != null ? "down" : latencyNanos / 1_000_000 > HEALTH_SLOW_MS ? "degraded" : "ok";
 
-	// DELETE /api/learning/{id}
-	private void handleDeleteLearning(HttpServletRequest request, HttpServletResponse response, String learningId) throws Exception {
-		Long learningIdLong;
-		try {
-			learningIdLong = Long.parseLong(learningId);
-		} catch (NumberFormatException e) {
-			sendError(response, 400, "Invalid learning ID");
-			return;
+		ResponseWriter out = openJson(response, "ok".equals(status) ? 200 : 503);
+		out.beginObject().field("status", status);
+		out.name("probe").beginObject()
+			.field("ok", error == null)
+			.field("latencyMs", latencyNanos / 1_000_000);
+		if (error != null) out.field("error", error);
+		out.endObject();
+		out.name("probeLatencyMs").beginObject()
+			.field("samples", PROBE_LATENCY.size())
+			.field("p50", PROBE_LATENCY.percentile(0.5) / 1_000_000)
+			.field("p95", PROBE_LATENCY.percentile(0.95) / 1_000_000)
+			.field("max", PROBE_LATENCY.percentile(1.0) / 1_000_000)
+			.endObject();
+		out.field("warm", WARMED_UP.get());
+		out.name("tables").beginObject()
+			.field("Learning", TABLE_IDS.containsKey("Learning"))
+			.field(TABLE_APPLICATION, TABLE_IDS.containsKey(TABLE_APPLICATION))
+			.endObject();
+		out.name("caches").beginObject()
+			.field("credentials", USER_ID_BY_CREDENTIAL.size())
+			.field("idempotencyKeys", IDEMPOTENCY_CACHE.size())
+			.field("analytics", ANALYTICS_CACHE.size())
+			.field("duplicateIndexUsers", DUPLICATE_INDEX.size())
+			.endObject();
+		if (RESPONSE_CACHE != null) {
+			out.name("responseCache").beginObject()
+				.field("shared", RESPONSE_CACHE.sharedName())
+				.field("localEntries", RESPONSE_CACHE.localSize())
+				.field("localHits", RESPONSE_CACHE.localHits())
+				.field("sharedHits", RESPONSE_CACHE.sharedHits())
+				.field("misses", RESPONSE_CACHE.misses())
+				.field("sharedErrors", RESPONSE_CACHE.sharedErrors())
+				.endObject();
+		}
+		out.name("queries").beginArray();
+		for (ZcqlTemplate template : ZcqlTemplate.all()) {
+			long executions = template.executions();
+			out.beginObject()
+				.field("id", template.id)
+				.field("executions", executions)
+				.field("failures", template.failures())
+				.field("avgMicros", executions > 0 ? template.totalNanos() / executions / 1000 : 0)
+				.endObject();
 		}
+		out.endArray();
+		if (QUERY_BUDGET.mode() != QueryBudget.Mode.OFF) {
+			out.name("queryBudget").beginObject()
+				.field("mode", QUERY_BUDGET.mode().name().toLowerCase(Locale.ROOT))
+				.field("violations", QUERY_BUDGET.violations())
+				.endObject();
+		}
+		out.name("reads").beginObject()
+			.field("timeoutMs", HEDGED_READS.timeoutMillis())
+			.field("hedging", HEDGED_READS.hedging())
+			.field("hedgeAfterMs", HEDGED_READS.hedgeAfterMillis())
+			.field("reads", HEDGED_READS.reads())
+			.field("hedged", HEDGED_READS.hedged())
+			.field("hedgeWins", HEDGED_READS.hedgeWins())
+			.field("timeouts", HEDGED_READS.timeouts())
+			.endObject();
+		if (RATE_LIMITER != null) {
+			out.name("rateLimit").beginObject()
+				.field("allowedReads", RATE_LIMITER.allowedReads())
+				.field("throttledReads", RATE_LIMITER.throttledReads())
+				.field("allowedWrites", RATE_LIMITER.allowedWrites())
+				.field("throttledWrites", RATE_LIMITER.throttledWrites())
+				.endObject();
+		}
+		out.endObject();
+		out.close();
+	}
 
+	@Override
+	public void runner(HttpServletRequest request, HttpServletResponse response) throws Exception {
+		long start = System.nanoTime();
+		int[] calls = DATA_STORE_CALLS.get();
+		calls[0] = 0;
+		QUERY_BUDGET.begin(request.getMethod(), request.getRequestURI());
+		boolean sampled = ACCESS_LOG.sample();
+		AccessLog.CountingResponse counted = sampled ? new AccessLog.CountingResponse(response) : null;
 		try {
-			ArrayList<ZCRowObject> validateRows = ZCQL.getInstance().executeQuery(
-				"SELECT ROWID FROM Learning WHERE ROWID = " + learningIdLong
-			);
-
-			if (validateRows == null || validateRows.isEmpty()) {
-				sendError(response, 404, "Learning not found");
-				return;
+			route(request, sampled ? counted : response);
+		} finally {
+			// Any write may change what the user's cached responses and analytics were computed from
+			if (!"GET".equals(request.getMethod())) {
+				Long userId = currentUserId(request);
+				if (userId != null) {
+					ANALYTICS_CACHE.invalidate(userId);
+					if (RESPONSE_CACHE != null) RESPONSE_CACHE.bump(userId);
+				}
+			}
+			QUERY_BUDGET.end();
+			// Unsampled requests are still logged on server errors, without a byte count
+			int status = response.getStatus();
+			if (sampled || status >= 500) {
+				ACCESS_LOG.record(request.getMethod(), request.getRequestURI(), status,
+					System.nanoTime() - start, calls[0], sampled ? counted.bytesWritten() : -1L);
 			}
-
-			ZCQL.getInstance().executeQuery(
-				"DELETE FROM " + TABLE_APPLICATION + " WHERE learning_id = " + learningIdLong
-			);
-			ZCQL.getInstance().executeQuery(
-				"DELETE FROM Learning WHERE ROWID = " + learningIdLong
-			);
-
-			sendJson(response, 200, "{\"success\":true}");
-		} catch (Exception e) {
-			LOGGER.log(Level.SEVERE, "Error in handleDeleteLearning: " + e.getMessage(), e);
-			sendError(response, 500, "Failed to delete learning: " + e.getMessage());
 		}
 	}
 
-	@Override
-	public void runner(HttpServletRequest request, HttpServletResponse response) throws Exception {
+	private void route(HttpServletRequest request, HttpServletResponse response) throws Exception {
 		try {
 			String uri = request.getRequestURI();
 			String method = request.getMethod();
 
-			LOGGER.log(Level.INFO, "Request: " + method + " " + uri);
+			if (LOGGER.isLoggable(Level.FINE)) {
+				LOGGER.log(Level.FINE, "Request: " + method + " " + uri);
+			}
+
+			// Warmup and health are called by deploy hooks and monitors rather than users, so they skip admission
+			if ("GET".equals(method) && "/api/_warmup".equals(uri)) {
+				handleWarmup(request, response);
+				return;
+			}
+			if ("GET".equals(method) && "/api/_health".equals(uri)) {
+				handleHealth(request, response);
+				return;
+			}
+
+			if (!admit(request, response, method, uri)) return;
 
 			if ("GET".equals(method) && "/api/learning".equals(uri)) {
-				handleGetLearning(request, response);
+				withResponseCache(request, response, this::handleGetLearning);
 				return;
 			}
 			if ("POST".equals(method) && "/api/learning".equals(uri)) {
-				handlePostLearning(request, response);
+				withIdempotency(request, response, this::handlePostLearning);
+				return;
+			}
+			if ("POST".equals(method) && "/api/learning/bulk-delete".equals(uri)) {
+				handleBulkDeleteLearning(request, response);
+				return;
+			}
+			if ("GET".equals(method) && "/api/bootstrap".equals(uri)) {
+				withResponseCache(request, response, this::handleBootstrap);
+				return;
+			}
+			if ("GET".equals(method) && "/api/analytics/timeline".equals(uri)) {
+				handleTimeline(request, response);
+				return;
+			}
+			if ("GET".equals(method) && "/api/recommendations".equals(uri)) {
+				withResponseCache(request, response, this::handleRecommendations);
+				return;
+			}
+			if ("GET".equals(method) && "/api/admin/report".equals(uri)) {
+				handleAdminReport(request, response);
+				return;
+			}
+			if ("GET".equals(method) && "/api/export".equals(uri)) {
+				handleExport(request, response);
+				return;
+			}
+			if ("POST".equals(method) && "/api/import".equals(uri)) {
+				handleImport(request, response);
 				return;
 			}
 			if ("GET".equals(method) && uri.startsWith("/api/learning/")) {
 				String id = uri.substring("/api/learning/".length());
 				if (!id.isEmpty() && !id.contains("/")) {
-					handleGetLearningById(request, response, id);
+					withResponseCache(request, response, (req, res) -> handleGetLearningById(req, res, id));
 					return;
 				}
 			}
+			if ("GET".equals(method) && uri.matches("/api/applied/\\d+")) {
+				handleGetAppliedSkill(request, response, uri.substring("/api/applied/".length()));
+				return;
+			}
+			if ("GET".equals(method) && uri.matches("/api/learning/\\d+/applied")) {
+				String pathPart = uri.substring("/api/learning/".length());
+				handleGetAppliedPage(request, response, pathPart.substring(0, pathPart.length() - "/applied".length()));
+				return;
+			}
+			if ("GET".equals(method) && uri.matches("/api/learning/\\d+/purge")) {
+				String pathPart = uri.substring("/api/learning/".length());
+				handleGetPurgeStatus(request, response, pathPart.substring(0, pathPart.length() - "/purge".length()));
+				return;
+			}
 			if ("DELETE".equals(method) && uri.startsWith("/api/learning/")) {
 				String pathPart = uri.substring("/api/learning/".length());
 				if (pathPart.endsWith("/applied")) return;
@@ -389,7 +2527,7 @@ public class SkillBridge implements CatalystAdvancedIOHandler {
 			if ("POST".equals(method) && uri.matches("/api/learning/\\d+/applied")) {
 				String pathPart = uri.substring("/api/learning/".length());
 				String id = pathPart.substring(0, pathPart.length() - "/applied".length());
-				handlePostAppliedSkill(request, response, id);
+				withIdempotency(request, response, (req, res) -> handlePostAppliedSkill(req, res, id));
 				return;
 			}
 
@@ -405,9 +2543,7 @@ public class SkillBridge implements CatalystAdvancedIOHandler {
 			if (errMsg.contains("UnAuthorized")) {
 				errMsg = "Data Store access unauthorized. Ensure tables Learning and " + TABLE_APPLICATION + " exist in Catalyst Data Store.";
 			}
-			response.setStatus(500);
-			response.setContentType("application/json");
-			response.getWriter().write("{\"error\":\"" + escapeJson(errMsg) + "\"}");
+			sendError(response, 500, errMsg);
 		}
 	}
 }
@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * ResponseWriter that builds JSON in a StringBuilder and hands it to the servlet Writer
+ * on flush/close. This is the original hand-built output path.
+ */
+final class StringBuilderResponseWriter implements ResponseWriter {
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private final Writer out;
+	private final StringBuilder json = new StringBuilder(256);
+	// first[d] is true until the container at depth d has its first element
+	private boolean[] first = new boolean[8];
+	private int depth;
+	private boolean afterName;
+	private boolean anyRoot;
+
+	StringBuilderResponseWriter(Writer out) {
+		this.out = out;
+	}
+
+	// Escapes the way JsonGenerator does: short forms for \b \t \n \f \r, hex escapes for other
+	// control characters and for each half of a surrogate pair
+	static String escapeJson(String value) {
+		if (value == null) return "";
+		int i = 0;
+		int n = value.length();
+		while (i < n) {
+			char c = value.charAt(i);
+			if (c < 0x20 || c == '"' || c == '\\' || Character.isSurrogate(c)) break;
+			i++;
+		}
+		if (i == n) return value;
+
+		StringBuilder escaped = new StringBuilder(n + 16).append(value, 0, i);
+		for (; i < n; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"': escaped.append("\\\""); break;
+				case '\\': escaped.append("\\\\"); break;
+				case '\b': escaped.append("\\b"); break;
+				case '\t': escaped.append("\\t"); break;
+				case '\n': escaped.append("\\n"); break;
+				case '\f': escaped.append("\\f"); break;
+				case '\r': escaped.append("\\r"); break;
+				default:
+					if (c < 0x20 || Character.isSurrogate(c)) {
+						escaped.append("\\u").append(HEX[c >> 12]).append(HEX[(c >> 8) & 0xF])
+							.append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+					} else {
+						escaped.append(c);
+					}
+			}
+		}
+		return escaped.toString();
+	}
+
+	private void separate() {
+		if (afterName) {
+			afterName = false;
+		} else if (depth == 0) {
+			if (anyRoot) json.append('\n');
+			anyRoot = true;
+		} else if (first[depth]) {
+			first[depth] = false;
+		} else {
+			json.append(',');
+		}
+	}
+
+	private void push() {
+		if (++depth == first.length) {
+			first = java.util.Arrays.copyOf(first, depth * 2);
+		}
+		first[depth] = true;
+	}
+
+	@Override
+	public ResponseWriter beginObject() {
+		separate();
+		json.append('{');
+		push();
+		return this;
+	}
+
+	@Override
+	public ResponseWriter endObject() {
+		json.append('}');
+		depth--;
+		return this;
+	}
+
+	@Override
+	public ResponseWriter beginArray() {
+		separate();
+		json.append('[');
+		push();
+		return this;
+	}
+
+	@Override
+	public ResponseWriter endArray() {
+		json.append(']');
+		depth--;
+		return this;
+	}
+
+	@Override
+	public ResponseWriter name(String name) {
+		separate();
+		json.append('"').append(escapeJson(name)).append("\":");
+		afterName = true;
+		return this;
+	}
+
+	@Override
+	public ResponseWriter value(String value) {
+		separate();
+		if (value == null) {
+			json.append("null");
+		} else {
+			json.append('"').append(escapeJson(value)).append('"');
+		}
+		return this;
+	}
+
+	@Override
+	public ResponseWriter value(long value) {
+		separate();
+		json.append(value);
+		return this;
+	}
+
+	@Override
+	public ResponseWriter value(boolean value) {
+		separate();
+		json.append(value);
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (json.length() > 0) {
+			out.write(json.toString());
+			json.setLength(0);
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+}
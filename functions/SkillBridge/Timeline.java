@@ -0,0 +1,137 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Per-bucket counts of learnings created and skills applied, plus the median time from a
+ * learning's creation to its first applied skill. Learnings are added first; applied skills of
+ * learnings that were never added (filtered out or deleted) are ignored. After finish() the
+ * instance is read-only and can be shared between requests.
+ */
+final class Timeline {
+	static final String WEEK = "week";
+	static final String MONTH = "month";
+
+	private final boolean monthly;
+	private final String category;
+	// Bucket start -> { learnings, applied }
+	private final TreeMap<LocalDate, int[]> buckets = new TreeMap<LocalDate, int[]>();
+	// Learning ROWID -> index + 1 into createdAt and firstAppliedAt
+	private LongIntMap learningIndex = new LongIntMap(64);
+	private long[] createdAt = new long[64];
+	private long[] firstAppliedAt = new long[64];
+	private int learnings;
+	private int applied;
+	private long medianMillis = -1;
+	private int learningsApplied;
+
+	// category is only reported back; filtering happens in the query
+	Timeline(String bucket, String category) {
+		this.monthly = MONTH.equals(bucket);
+		this.category = category;
+	}
+
+	// CREATEDTIME as Catalyst formats it ("yyyy-MM-dd HH:mm:ss:SSS"); rows with an unreadable time are skipped
+	void addLearning(long learningId, String createdTime) {
+		LocalDateTime created = parse(createdTime);
+		if (learningId <= 0 || created == null) return;
+		if (learnings == createdAt.length) {
+			createdAt = Arrays.copyOf(createdAt, learnings * 2);
+			firstAppliedAt = Arrays.copyOf(firstAppliedAt, learnings * 2);
+		}
+		createdAt[learnings] = created.toInstant(ZoneOffset.UTC).toEpochMilli();
+		firstAppliedAt[learnings] = Long.MAX_VALUE;
+		learnings++;
+		learningIndex.add(learningId, learnings);
+		bucket(created)[0]++;
+	}
+
+	void addApplied(long learningId, String createdTime) {
+		int index = learningIndex.get(learningId) - 1;
+		LocalDateTime created = parse(createdTime);
+		if (index < 0 || created == null) return;
+		long at = created.toInstant(ZoneOffset.UTC).toEpochMilli();
+		if (at < firstAppliedAt[index]) firstAppliedAt[index] = at;
+		applied++;
+		bucket(created)[1]++;
+	}
+
+	Timeline finish() {
+		long[] delays = new long[learnings];
+		int n = 0;
+		for (int i = 0; i < learnings; i++) {
+			if (firstAppliedAt[i] != Long.MAX_VALUE) delays[n++] = Math.max(0, firstAppliedAt[i] - createdAt[i]);
+		}
+		learningsApplied = n;
+		if (n > 0) {
+			Arrays.sort(delays, 0, n);
+			medianMillis = n % 2 == 1 ? delays[n / 2] : (delays[n / 2 - 1] + delays[n / 2]) / 2;
+		}
+		// Only the buckets are read from here on
+		learningIndex = null;
+		createdAt = null;
+		firstAppliedAt = null;
+		return this;
+	}
+
+	/**
+	 * Writes { bucket, category, learnings, applied, learningsApplied, medianMinutesToFirstApplication,
+	 * series: [{ start, learnings, applied }] }. The series runs from the first to the last
+	 * non-empty bucket with empty buckets filled in, so it can be charted as is.
+	 */
+	void write(ResponseWriter out) throws Exception {
+		out.beginObject()
+			.field("bucket", monthly ? MONTH : WEEK)
+			.field("category", category)
+			.field("learnings", learnings)
+			.field("applied", applied)
+			.field("learningsApplied", learningsApplied);
+		out.name("medianMinutesToFirstApplication");
+		if (medianMillis >= 0) out.value(medianMillis / 60000L); else out.value((String) null);
+		out.name("series").beginArray();
+		if (!buckets.isEmpty()) {
+			LocalDate last = buckets.lastKey();
+			for (LocalDate start = buckets.firstKey(); !start.isAfter(last); start = monthly ? start.plusMonths(1) : start.plusWeeks(1)) {
+				int[] counts = buckets.get(start);
+				out.beginObject()
+					.field("start", start.toString())
+					.field("learnings", counts != null ? counts[0] : 0)
+					.field("applied", counts != null ? counts[1] : 0)
+					.endObject();
+			}
+		}
+		out.endArray();
+		out.endObject();
+	}
+
+	private int[] bucket(LocalDateTime time) {
+		LocalDate day = time.toLocalDate();
+		LocalDate start = monthly ? day.withDayOfMonth(1) : day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		int[] counts = buckets.get(start);
+		if (counts == null) {
+			counts = new int[2];
+			buckets.put(start, counts);
+		}
+		return counts;
+	}
+
+	// Also used by Recommender; null when the time cannot be read
+	static LocalDateTime parse(String createdTime) {
+		if (createdTime == null || createdTime.length() < 19) return null;
+		try {
+			return LocalDateTime.of(
+				Integer.parseInt(createdTime.substring(0, 4)),
+				Integer.parseInt(createdTime.substring(5, 7)),
+				Integer.parseInt(createdTime.substring(8, 10)),
+				Integer.parseInt(createdTime.substring(11, 13)),
+				Integer.parseInt(createdTime.substring(14, 16)),
+				Integer.parseInt(createdTime.substring(17, 19)));
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+}
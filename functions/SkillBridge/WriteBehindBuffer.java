@@ -0,0 +1,169 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.zc.component.object.ZCObject;
+import com.zc.component.object.ZCRowObject;
+
+/**
+ * Write-behind buffer for one Data Store table.
+ * Rows are acknowledged with a provisional id and queued in a bounded queue; a single
+ * flusher drains them as insertRows batches when batchSize rows are waiting or every
+ * maxDelayMillis, whichever comes first. Pending rows are flushed at JVM shutdown.
+ * Each batch is split by owner and written under that owner's credentials.
+ */
+final class WriteBehindBuffer {
+	private static final Logger LOGGER = Logger.getLogger(WriteBehindBuffer.class.getName());
+
+	/**
+	 * Durability hooks. buffered() and withdrawn() run on the request thread and must not block;
+	 * committed() and failed() run on the flusher, under the credentials of the rows' owner. An implementation can journal rows on
+	 * buffered() and clear them on committed() so a crash between the two is recoverable.
+	 */
+	interface Durability {
+		// Called before the row is queued, so it always precedes committed() for the same id
+		void buffered(String provisionalId, ZCRowObject row);
+
+		// The queue was full; the caller writes the row itself
+		void withdrawn(String provisionalId);
+
+		void committed(List<String> provisionalIds, List<ZCRowObject> inserted);
+
+		void failed(List<String> provisionalIds, List<ZCRowObject> rows, Exception error);
+	}
+
+	// Default hooks: nothing is journaled, and rows that fail to flush are logged in full for replay
+	static final Durability LOG_FAILURES = new Durability() {
+		@Override
+		public void buffered(String provisionalId, ZCRowObject row) {
+		}
+
+		@Override
+		public void withdrawn(String provisionalId) {
+		}
+
+		@Override
+		public void committed(List<String> provisionalIds, List<ZCRowObject> inserted) {
+		}
+
+		@Override
+		public void failed(List<String> provisionalIds, List<ZCRowObject> rows, Exception error) {
+			StringBuilder lost = new StringBuilder();
+			for (int i = 0; i < rows.size(); i++) {
+				lost.append('\n').append(provisionalIds.get(i)).append(' ').append(rows.get(i).getRowObject());
+			}
+			LOGGER.log(Level.SEVERE, "Write-behind flush failed for " + rows.size() + " rows:" + lost, error);
+		}
+	};
+
+	private static final class Pending {
+		final String provisionalId;
+		final Long owner;
+		final ZCRowObject row;
+		final CatalystContext context;
+
+		Pending(String provisionalId, Long owner, ZCRowObject row, CatalystContext context) {
+			this.provisionalId = provisionalId;
+			this.owner = owner;
+			this.row = row;
+			this.context = context;
+		}
+	}
+
+	private final String table;
+	private final int batchSize;
+	private final Durability durability;
+	private final ArrayBlockingQueue<Pending> queue;
+	private final AtomicBoolean flushQueued = new AtomicBoolean();
+	private final AtomicLong sequence = new AtomicLong();
+	private final String idPrefix = "p" + Long.toHexString(ThreadLocalRandom.current().nextLong() & 0xffffffL) + "-";
+	private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "skillbridge-write-behind");
+		t.setDaemon(true);
+		return t;
+	});
+
+	WriteBehindBuffer(String table, int capacity, int batchSize, long maxDelayMillis, Durability durability) {
+		this.table = table;
+		this.batchSize = batchSize;
+		this.durability = durability;
+		this.queue = new ArrayBlockingQueue<Pending>(capacity);
+		flusher.scheduleWithFixedDelay(this::flush, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "skillbridge-write-behind-shutdown"));
+	}
+
+	/**
+	 * Queues the row for owner (the caller's user id, or null) and returns its provisional id, or
+	 * null when the buffer is full and the caller should insert synchronously instead. Must be
+	 * called on the request thread, whose credentials are used for the insert.
+	 */
+	String offer(Long owner, ZCRowObject row) {
+		String provisionalId = idPrefix + sequence.incrementAndGet();
+		durability.buffered(provisionalId, row);
+		if (!queue.offer(new Pending(provisionalId, owner, row, CatalystContext.capture()))) {
+			durability.withdrawn(provisionalId);
+			return null;
+		}
+		if (queue.size() >= batchSize && flushQueued.compareAndSet(false, true)) {
+			flusher.execute(() -> {
+				flushQueued.set(false);
+				flush();
+			});
+		}
+		return provisionalId;
+	}
+
+	// Drains everything currently queued; synchronized so the timer, size trigger and shutdown hook never overlap
+	synchronized void flush() {
+		List<Pending> batch = new ArrayList<Pending>(batchSize);
+		while (queue.drainTo(batch, batchSize) > 0) {
+			LinkedHashMap<Long, List<Pending>> byOwner = new LinkedHashMap<Long, List<Pending>>();
+			for (Pending p : batch) {
+				byOwner.computeIfAbsent(p.owner, k -> new ArrayList<Pending>()).add(p);
+			}
+			for (List<Pending> group : byOwner.values()) {
+				insert(group);
+			}
+			batch.clear();
+		}
+	}
+
+	private void insert(List<Pending> group) {
+		List<String> ids = new ArrayList<String>(group.size());
+		List<ZCRowObject> rows = new ArrayList<ZCRowObject>(group.size());
+		for (Pending p : group) {
+			ids.add(p.provisionalId);
+			rows.add(p.row);
+		}
+		// The owner's newest request carries the freshest credentials
+		CatalystContext context = group.get(group.size() - 1).context;
+		List<ZCRowObject> inserted;
+		try {
+			inserted = context.call(() -> ZCObject.getInstance().getTable(table).insertRows(rows));
+		} catch (Exception e) {
+			hook(context, () -> durability.failed(ids, rows, e));
+			return;
+		}
+		hook(context, () -> durability.committed(ids, inserted));
+	}
+
+	private static void hook(CatalystContext context, Runnable hook) {
+		try {
+			context.call(() -> {
+				hook.run();
+				return null;
+			});
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "Write-behind durability hook failed", e);
+		}
+	}
+}
@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zc.common.ZCProject;
+import com.zc.component.object.ZCRowObject;
+
+/**
+ * A ZCQL statement parsed once, with typed placeholders bound per call.
+ * Placeholders are {long}, {string}, {bool} and {longs} (a comma-separated list for IN). The
+ * text between them is split out at compile time, and binding appends fragments and escaped
+ * literals into a per-thread buffer, so a request only builds the final string. Each template
+ * has an id under which its executions, failures and time are counted.
+ */
+final class ZcqlTemplate {
+	private static final int LONG = 0;
+	private static final int STRING = 1;
+	private static final int BOOL = 2;
+	private static final int LONGS = 3;
+	private static final String[] TYPE_NAMES = { "long", "string", "bool", "longs" };
+
+	private static final List<ZcqlTemplate> ALL = new CopyOnWriteArrayList<ZcqlTemplate>();
+
+	private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+	// The binder that currently owns this thread's buffer
+	private static final ThreadLocal<Binder> OWNER = new ThreadLocal<Binder>();
+
+	final String id;
+	// Expected to repeat within a request (keyset pages, chunked IN lists); see QueryBudget
+	final boolean batched;
+	private final String[] fragments;
+	private final int[] types;
+	private final AtomicLong executions = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong nanos = new AtomicLong();
+
+	private ZcqlTemplate(String id, boolean batched, String[] fragments, int[] types) {
+		this.id = id;
+		this.batched = batched;
+		this.fragments = fragments;
+		this.types = types;
+	}
+
+	// Throws IllegalArgumentException for an unknown or unclosed placeholder, so a bad template fails at startup
+	static ZcqlTemplate compile(String id, String text) {
+		return compile(id, false, text);
+	}
+
+	// For a keyset page or chunk statement that a request legitimately runs many times
+	static ZcqlTemplate compileBatched(String id, String text) {
+		return compile(id, true, text);
+	}
+
+	private static ZcqlTemplate compile(String id, boolean batched, String text) {
+		List<String> fragments = new ArrayList<String>();
+		List<Integer> types = new ArrayList<Integer>();
+		int start = 0;
+		while (true) {
+			int open = text.indexOf('{', start);
+			if (open < 0) break;
+			int close = text.indexOf('}', open);
+			if (close < 0) throw new IllegalArgumentException("Unclosed placeholder in ZCQL template " + id);
+			String name = text.substring(open + 1, close);
+			int type = -1;
+			for (int i = 0; i < TYPE_NAMES.length; i++) {
+				if (TYPE_NAMES[i].equals(name)) type = i;
+			}
+			if (type < 0) throw new IllegalArgumentException("Unknown placeholder {" + name + "} in ZCQL template " + id);
+			fragments.add(text.substring(start, open));
+			types.add(type);
+			start = close + 1;
+		}
+		fragments.add(text.substring(start));
+		int[] typeArray = new int[types.size()];
+		for (int i = 0; i < typeArray.length; i++) typeArray[i] = types.get(i);
+		ZcqlTemplate template = new ZcqlTemplate(id, batched, fragments.toArray(new String[0]), typeArray);
+		ALL.add(template);
+		return template;
+	}
+
+	// Every compiled template, in compile order
+	static List<ZcqlTemplate> all() {
+		return ALL;
+	}
+
+	/**
+	 * Starts binding this template's parameters in order. Finish with query() before binding
+	 * another template on the same thread; the buffer is shared.
+	 */
+	Binder bind() {
+		Binder binder = new Binder();
+		OWNER.set(binder);
+		StringBuilder out = BUFFER.get();
+		out.setLength(0);
+		out.append(fragments[0]);
+		return binder;
+	}
+
+	// The statement as is, for templates without placeholders
+	Query query() {
+		return bind().query();
+	}
+
+	long executions() {
+		return executions.get();
+	}
+
+	long failures() {
+		return failures.get();
+	}
+
+	long totalNanos() {
+		return nanos.get();
+	}
+
+	final class Binder {
+		private int next;
+
+		private Binder() {
+		}
+
+		Binder bind(long value) {
+			buffer(LONG).append(value);
+			return advance();
+		}
+
+		// Quoted, with backslashes and quotes escaped; null binds the empty string
+		Binder bind(String value) {
+			StringBuilder out = buffer(STRING);
+			out.append('\'');
+			if (value != null) {
+				for (int i = 0; i < value.length(); i++) {
+					char c = value.charAt(i);
+					if (c == '\\' || c == '\'') out.append('\\');
+					out.append(c);
+				}
+			}
+			out.append('\'');
+			return advance();
+		}
+
+		Binder bind(boolean value) {
+			buffer(BOOL).append(value);
+			return advance();
+		}
+
+		// At least one value is required, since ZCQL rejects an empty IN list
+		Binder bind(Collection<Long> values) {
+			if (values.isEmpty()) throw new IllegalArgumentException("Empty {longs} in ZCQL template " + id);
+			StringBuilder out = buffer(LONGS);
+			boolean first = true;
+			for (Long value : values) {
+				if (!first) out.append(',');
+				out.append(value.longValue());
+				first = false;
+			}
+			return advance();
+		}
+
+		Query query() {
+			if (next != types.length) {
+				throw new IllegalStateException("ZCQL template " + id + " needs " + types.length + " parameters, got " + next);
+			}
+			String text = BUFFER.get().toString();
+			OWNER.remove();
+			return new Query(ZcqlTemplate.this, text);
+		}
+
+		private StringBuilder buffer(int type) {
+			if (OWNER.get() != this) throw new IllegalStateException("ZCQL template " + id + " was bound across another binding");
+			if (next >= types.length) throw new IllegalStateException("Too many parameters for ZCQL template " + id);
+			if (types[next] != type) {
+				throw new IllegalArgumentException("Parameter " + (next + 1) + " of ZCQL template " + id + " is {" + TYPE_NAMES[types[next]]
+					+ "}, not {" + TYPE_NAMES[type] + "}");
+			}
+			return BUFFER.get();
+		}
+
+		private Binder advance() {
+			BUFFER.get().append(fragments[++next]);
+			return this;
+		}
+	}
+
+	/**
+	 * A bound statement, ready to run on any thread.
+	 */
+	static final class Query {
+		final ZcqlTemplate template;
+		final String text;
+
+		private Query(ZcqlTemplate template, String text) {
+			this.template = template;
+			this.text = text;
+		}
+
+		// Runs the statement with the calling thread's SDK context, counting it against the template
+		ArrayList<ZCRowObject> execute() throws Exception {
+			return execute(null);
+		}
+
+		// As execute(), on an explicitly initialized project (e.g. admin scope) when project is not null
+		ArrayList<ZCRowObject> execute(ZCProject project) throws Exception {
+			long start = System.nanoTime();
+			boolean ok = false;
+			try {
+				ArrayList<ZCRowObject> rows = DataStore.get().executeQuery(project, text);
+				ok = true;
+				return rows;
+			} finally {
+				template.executions.incrementAndGet();
+				template.nanos.addAndGet(System.nanoTime() - start);
+				if (!ok) template.failures.incrementAndGet();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return text;
+		}
+	}
+}
@@ -0,0 +1,14 @@
+#!/usr/bin/env bash
+# Allocation and time per request for the applied-skill counting in the list, columnar and
+# bootstrap handlers, before and after LongIntMap (scripts/bench/AppliedCountBench.java).
+#
+#   scripts/bench-applied-count.sh [rows ...]   synthetic AppliedSkill rows per request; default 100000 1000000
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+FN="$ROOT/functions/SkillBridge"
+OUT="${BENCH_OUT:-$ROOT/.build/bench}"
+
+rm -rf "$OUT" && mkdir -p "$OUT"
+javac -encoding UTF-8 -cp "$FN/lib/*" -d "$OUT" "$FN"/*.java "$ROOT/scripts/bench/AppliedCountBench.java"
+java -XX:+UseG1GC -Xms2g -Xmx2g -cp "$OUT:$FN/lib/*" AppliedCountBench "$@"
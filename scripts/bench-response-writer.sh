@@ -0,0 +1,14 @@
+#!/usr/bin/env bash
+# Time, allocation and output bytes per response for StringBuilderResponseWriter and
+# JacksonResponseWriter writing the /api/learning list shape (scripts/bench/ResponseWriterBench.java).
+#
+#   scripts/bench-response-writer.sh [items ...]   list items per response; default 20 1000 50000
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+FN="$ROOT/functions/SkillBridge"
+OUT="${BENCH_OUT:-$ROOT/.build/bench}"
+
+rm -rf "$OUT" && mkdir -p "$OUT"
+javac -encoding UTF-8 -cp "$FN/lib/*" -d "$OUT" "$FN"/*.java "$ROOT/scripts/bench/ResponseWriterBench.java"
+java -XX:+UseG1GC -Xms1g -Xmx1g -cp "$OUT:$FN/lib/*" ResponseWriterBench "$@"
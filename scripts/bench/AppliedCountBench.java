@@ -0,0 +1,140 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.GarbageCollectorMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.zc.component.object.ZCRowObject;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Allocation and time per request for counting applied skills per learning, the way the list,
+ * columnar and bootstrap handlers do it: once with the old HashMap<Long, Long> and
+ * String.valueOf/Long.parseLong path, once with LongIntMap and SkillBridge.longColumn.
+ * Rows are synthetic ZCQL rows ({ "AppliedSkill": { "learning_id": ... } }), with the id either
+ * as a Long or as a digit string, since the Data Store returns both.
+ *
+ *   java AppliedCountBench [appliedRows ...]   default 100000 1000000
+ */
+public class AppliedCountBench {
+	private static final String TABLE = "AppliedSkill";
+	private static final int LEARNINGS = 2000;
+	private static final int WARMUP = 5;
+	private static final int REQUESTS = 10;
+	private static final long BASE_ID = 7000000000000000L;
+
+	// SkillBridge.longColumn is private; a constant handle is inlined like a direct call, without boxing
+	private static final MethodHandle LONG_COLUMN = longColumn();
+
+	private static long sink;
+
+	private static MethodHandle longColumn() {
+		try {
+			Class<?> handler = Class.forName("SkillBridge");
+			return MethodHandles.privateLookupIn(handler, MethodHandles.lookup()).findStatic(handler, "longColumn",
+				MethodType.methodType(long.class, ZCRowObject.class, String.class, String.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public static void main(String[] args) throws Throwable {
+		List<ZCRowObject> learnings = new ArrayList<ZCRowObject>(LEARNINGS);
+		for (int i = 0; i < LEARNINGS; i++) learnings.add(row("Learning", "ROWID", String.valueOf(BASE_ID + i)));
+
+		String[] sizes = args.length > 0 ? args : new String[] { "100000", "1000000" };
+		System.out.printf("%-9s %-7s %-22s %-22s%n", "rows", "id form", "before (MB/req, ms)", "after (MB/req, ms)");
+		for (String size : sizes) {
+			int n = Integer.parseInt(size);
+			for (boolean stringIds : new boolean[] { false, true }) {
+				List<ZCRowObject> applied = new ArrayList<ZCRowObject>(n);
+				for (int i = 0; i < n; i++) {
+					long id = BASE_ID + (i % LEARNINGS);
+					applied.add(row(TABLE, "learning_id", stringIds ? String.valueOf(id) : Long.valueOf(id)));
+				}
+				double[] before = measure(() -> before(applied, learnings));
+				double[] after = measure(() -> after(applied, learnings));
+				System.out.printf("%-9d %-7s %8.1f, %9.1f      %8.1f, %9.1f%n", n, stringIds ? "String" : "Long",
+					before[0], before[1], after[0], after[1]);
+				System.out.printf("%-17s gc ms per %d requests: before %d, after %d%n", "", REQUESTS, (long) before[2], (long) after[2]);
+			}
+		}
+		if (sink == 42) System.out.println();
+	}
+
+	private interface Request {
+		long run() throws Throwable;
+	}
+
+	// MB allocated and ms taken per request on this thread, and GC ms over all measured requests
+	private static double[] measure(Request request) throws Throwable {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		for (int i = 0; i < WARMUP; i++) sink += request.run();
+		System.gc();
+		long gcBefore = gcMillis();
+		long bytes = threads.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < REQUESTS; i++) sink += request.run();
+		long nanos = System.nanoTime() - start;
+		bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+		return new double[] { bytes / 1e6 / REQUESTS, nanos / 1e6 / REQUESTS, gcMillis() - gcBefore };
+	}
+
+	private static long gcMillis() {
+		long total = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += Math.max(0, gc.getCollectionTime());
+		return total;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ZCRowObject row(String table, String column, Object value) {
+		JSONObject columns = new JSONObject();
+		columns.put(column, value);
+		JSONObject json = new JSONObject();
+		json.put(table, columns);
+		ZCRowObject row = ZCRowObject.getInstance();
+		row.setRowObject(json);
+		return row;
+	}
+
+	// The counting and lookups as they were before LongIntMap
+	private static long before(List<ZCRowObject> applied, List<ZCRowObject> learnings) {
+		Map<Long, Long> counts = new HashMap<Long, Long>();
+		for (ZCRowObject ar : applied) {
+			Object lid = ar.get(TABLE, "learning_id");
+			if (lid != null) {
+				try {
+					Long learningId = Long.parseLong(String.valueOf(lid));
+					Long prev = counts.get(learningId);
+					counts.put(learningId, (prev != null ? prev : 0L) + 1L);
+				} catch (NumberFormatException e) {
+					/* ignore invalid learning_id */
+				}
+			}
+		}
+		long total = 0;
+		for (ZCRowObject row : learnings) {
+			Long count = counts.get(Long.parseLong(String.valueOf(row.get("Learning", "ROWID"))));
+			total += count != null ? count : 0L;
+		}
+		return total;
+	}
+
+	private static long after(List<ZCRowObject> applied, List<ZCRowObject> learnings) throws Throwable {
+		LongIntMap counts = new LongIntMap(learnings.size());
+		for (ZCRowObject ar : applied) {
+			long learningId = (long) LONG_COLUMN.invokeExact(ar, TABLE, "learning_id");
+			if (learningId > 0) counts.add(learningId, 1);
+		}
+		long total = 0;
+		for (ZCRowObject row : learnings) {
+			total += counts.get((long) LONG_COLUMN.invokeExact(row, "Learning", "ROWID"));
+		}
+		return total;
+	}
+}
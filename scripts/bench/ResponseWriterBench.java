@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Time, allocation and output size per response for the two ResponseWriter backends, writing the
+ * GET /api/learning list shape: StringBuilderResponseWriter through an OutputStreamWriter, the way
+ * the servlet Writer encodes it, and JacksonResponseWriter straight onto the stream. Every tenth
+ * topic has quotes, a newline and non-ASCII text so both escaping paths are exercised. The output
+ * goes to a stream that only counts bytes.
+ *
+ *   java ResponseWriterBench [items ...]   default 20 1000 50000 (small, medium, large)
+ */
+public class ResponseWriterBench {
+	private static final int WARMUP = 20;
+	private static final int REQUESTS = 50;
+	private static final long BASE_ID = 3000000000000000L;
+	private static final String[] CATEGORIES = { "Backend", "Frontend", "Data", "Ops", "Design" };
+
+	private static long sink;
+
+	public static void main(String[] args) throws Exception {
+		String[] sizes = args.length > 0 ? args : new String[] { "20", "1000", "50000" };
+		System.out.printf("%-7s %-8s %12s %14s %10s %8s%n", "items", "writer", "bytes out", "KB alloc/req", "ms/req", "gc ms");
+		for (String size : sizes) {
+			Item[] items = items(Integer.parseInt(size));
+			for (boolean jackson : new boolean[] { false, true }) {
+				double[] result = measure(() -> write(items, jackson));
+				System.out.printf("%-7d %-8s %12d %14.1f %10.3f %8d%n", items.length, jackson ? "jackson" : "builder",
+					(long) result[0], result[1], result[2], (long) result[3]);
+			}
+		}
+		if (sink == 42) System.out.println();
+	}
+
+	private static final class Item {
+		final String id;
+		final String topic;
+		final String category;
+		final String source;
+		final String createdTime;
+		final long appliedCount;
+
+		Item(int i) {
+			id = String.valueOf(BASE_ID + i);
+			topic = i % 10 == 0
+				? "Café “résumé” notes \"quoted\"\nline " + i
+				: "Learning topic number " + i + " about keyset pagination";
+			category = CATEGORIES[i % CATEGORIES.length];
+			source = i % 3 == 0 ? "" : "https://example.com/articles/" + i;
+			createdTime = "2026-03-" + (10 + i % 18) + " 09:" + (10 + i % 50) + ":00:000";
+			appliedCount = i % 4;
+		}
+	}
+
+	private static Item[] items(int n) {
+		Item[] items = new Item[n];
+		for (int i = 0; i < n; i++) items[i] = new Item(i);
+		return items;
+	}
+
+	// One response, as the list handler writes it; returns the bytes that reached the stream
+	private static long write(Item[] items, boolean jackson) throws IOException {
+		CountingStream stream = new CountingStream();
+		ResponseWriter out = jackson
+			? new JacksonResponseWriter(stream)
+			: new StringBuilderResponseWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+		out.beginArray();
+		for (Item item : items) {
+			out.beginObject()
+				.field("id", item.id)
+				.field("topic", item.topic)
+				.field("category", item.category)
+				.field("source", item.source)
+				.field("createdTime", item.createdTime)
+				.field("appliedCount", item.appliedCount)
+				.field("status", item.appliedCount > 0 ? "APPLIED" : "PENDING")
+				.endObject();
+		}
+		out.endArray();
+		out.close();
+		return stream.count;
+	}
+
+	private interface Request {
+		long run() throws Exception;
+	}
+
+	// Bytes written, KB allocated and ms taken per request on this thread, and GC ms over all measured requests
+	private static double[] measure(Request request) throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long written = 0;
+		for (int i = 0; i < WARMUP; i++) written = request.run();
+		System.gc();
+		long gcBefore = gcMillis();
+		long bytes = threads.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < REQUESTS; i++) sink += request.run();
+		long nanos = System.nanoTime() - start;
+		bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+		return new double[] { written, bytes / 1e3 / REQUESTS, nanos / 1e6 / REQUESTS, gcMillis() - gcBefore };
+	}
+
+	private static long gcMillis() {
+		long total = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += Math.max(0, gc.getCollectionTime());
+		return total;
+	}
+
+	// Discards the response and keeps its size
+	private static final class CountingStream extends OutputStream {
+		long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+#!/usr/bin/env bash
+# Builds an AppCDS archive of the SkillBridge function running in the local Catalyst
+# Advanced I/O runtime (.build/.catalyst/java17/aioserver), and compares cold starts.
+#
+#   scripts/build-cds.sh              compile, package and train; writes .build/cds/skillbridge.jsa
+#   scripts/build-cds.sh measure [n]  also run n cold starts (default 5) for each of: plain, warmup, cds, cds+warmup
+#
+# The archive is only valid for the JDK build and classpath it was trained on.
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+FN="$ROOT/functions/SkillBridge"
+AIO="${AIO_SERVER:-$ROOT/.build/.catalyst/java17/aioserver}"
+OUT="${CDS_OUT:-$ROOT/.build/cds}"
+ARCHIVE="$OUT/skillbridge.jsa"
+PORT="${CDS_PORT:-9470}"
+
+# The local runtime rejects requests without the headers the Catalyst gateway adds
+HEADERS=(
+	-H "X-ZC-Admin-Cred-Type: token" -H "X-ZC-Admin-Cred-Token: local"
+	-H "X-ZC-User-Cred-Type: token" -H "X-ZC-User-Cred-Token: local"
+	-H "X-ZC-ProjectId: 1" -H "X-ZC-Project-Key: 1" -H "X-ZC-Project-Domain: http://127.0.0.1:1"
+	-H "X-ZC-Environment: Development" -H "X-ZC-User-Type: admin"
+)
+
+package() {
+	rm -rf "$OUT/fn" && mkdir -p "$OUT/fn"
+	javac -encoding UTF-8 -cp "$FN/lib/*" -d "$OUT/fn" "$FN"/*.java
+	cp "$FN"/lib/*.jar "$FN/catalyst-config.json" "$OUT/fn/"
+	rm -f "$OUT/function.zip"
+	(cd "$OUT/fn" && jar cfM ../function.zip .)
+	# CDS refuses non-empty directories on the classpath, so the server classes go in a jar
+	(cd "$AIO" && jar cf "$OUT/aioserver.jar" JavaaioServer*.class)
+}
+
+# start_server <java options...>; leaves SERVER_PID set, the function initialized, and READY_MS
+# holding the time from launch until /init returned
+start_server() {
+	local code="$OUT/code-$PORT/" start
+	rm -rf "$code"
+	start=$(date +%s%N)
+	(cd "$AIO" && RATE_LIMIT_ENABLED=false X_ZOHO_CATALYST_IS_LOCAL=true X_ZOHO_CATALYST_CODE_LOCATION="$code" \
+		CATALYST_FUNCTION_TYPE=advancedio exec java "$@" -cp "$OUT/aioserver.jar:lib/*" JavaaioServer "$PORT" \
+		>"$OUT/server.log" 2>&1) &
+	SERVER_PID=$!
+	until curl -s -o /dev/null "http://localhost:$PORT/ruok"; do sleep 0.01; done
+	curl -s -o /dev/null -X POST --data-binary @"$OUT/function.zip" "http://localhost:$PORT/init"
+	READY_MS=$(( ($(date +%s%N) - start) / 1000000 ))
+}
+
+stop_server() {
+	kill "$SERVER_PID" 2>/dev/null || true
+	wait "$SERVER_PID" 2>/dev/null || true
+}
+
+# A POST that fails validation exercises routing, body parsing and the error writer without a Data Store
+timed_request() {
+	curl -s -o /dev/null -w "%{time_total}" "${HEADERS[@]}" -X POST -H "Content-Type: application/json" \
+		-d '{"topic":"","category":"warmup"}' "http://localhost:$PORT/api/learning"
+}
+
+train() {
+	rm -f "$ARCHIVE"
+	start_server -XX:ArchiveClassesAtExit="$ARCHIVE" -Xlog:cds=off
+	curl -s -o /dev/null "${HEADERS[@]}" "http://localhost:$PORT/api/_warmup"
+	timed_request >/dev/null
+	stop_server
+	echo "Wrote $ARCHIVE ($(du -h "$ARCHIVE" | cut -f1))"
+}
+
+median() {
+	printf '%s\n' "$@" | sort -n | sed -n "$(( ($# + 1) / 2 ))p"
+}
+
+measure() {
+	local runs="${1:-5}"
+	for mode in plain warmup cds cds+warmup; do
+		local opts=() firsts=() readies=()
+		# -Xshare:on fails the launch instead of silently running without the archive
+		case "$mode" in cds*) opts=(-XX:SharedArchiveFile="$ARCHIVE" -Xshare:on) ;; esac
+		for _ in $(seq "$runs"); do
+			start_server "${opts[@]}"
+			readies+=("$READY_MS")
+			case "$mode" in *warmup) curl -s -o /dev/null "${HEADERS[@]}" "http://localhost:$PORT/api/_warmup" ;; esac
+			firsts+=("$(timed_request)")
+			stop_server
+		done
+		printf '%-11s ready (ms): %s  median %s | first request (s): %s  median %s\n' "$mode" \
+			"${readies[*]}" "$(median "${readies[@]}")" "${firsts[*]}" "$(median "${firsts[@]}")"
+	done
+}
+
+case "${1:-build}" in
+	build|measure) ;;
+	*) echo "usage: $0 [build | measure [runs]]" >&2; exit 2 ;;
+esac
+# CDS checks jar timestamps, so the archive is always retrained against the jars just packaged
+package
+train
+if [ "${1:-build}" = measure ]; then measure "${2:-5}"; fi
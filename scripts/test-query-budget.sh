@@ -0,0 +1,14 @@
+#!/usr/bin/env bash
+# Drives every user route against an in-memory Data Store and fails on a query budget
+# violation, a repeated (N+1) query shape or a 5xx (scripts/test/QueryBudgetTest.java).
+#
+#   scripts/test-query-budget.sh
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+FN="$ROOT/functions/SkillBridge"
+OUT="${TEST_OUT:-$ROOT/.build/test}"
+
+rm -rf "$OUT" && mkdir -p "$OUT"
+javac -encoding UTF-8 -cp "$FN/lib/*" -d "$OUT" "$FN"/*.java "$ROOT/scripts/test/QueryBudgetTest.java"
+QUERY_BUDGET=log RATE_LIMIT_ENABLED=false java -cp "$OUT:$FN/lib/*" QueryBudgetTest
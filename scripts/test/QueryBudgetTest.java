@@ -0,0 +1,624 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.zc.common.ZCProject;
+import com.zc.component.object.ZCRowObject;
+import com.zc.component.object.ZCTable;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Drives every user route of SkillBridge against an in-memory Data Store with QUERY_BUDGET=log,
+ * once with a few rows and once with several pages per table, and fails when a request breaks
+ * its budget or repeats a shape (QueryBudget logs it at SEVERE) or answers 5xx. Also checks the
+ * detector itself: a loop over a batched template that returns short pages must be caught, while
+ * keyset paging must not. A PurgeWorker attempt is run against the same store under its own
+ * budget.
+ *
+ *   QUERY_BUDGET=log RATE_LIMIT_ENABLED=false java QueryBudgetTest   (see scripts/test-query-budget.sh)
+ */
+public class QueryBudgetTest {
+	private static final long USER_ID = 4000000000000001L;
+	private static final long BASE_ID = 3000000000000000L;
+	private static final String APPLIED = "AppliedSkill";
+	private static final String[] CATEGORIES = { "Design", "Testing", "Performance", "Security", "Leadership" };
+	private static final DateTimeFormatter CREATED = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	// Held so the level sticks; the access log would otherwise interleave with the results
+	private static final Logger ACCESS_LOG = Logger.getLogger("SkillBridge.access");
+
+	private static final List<String> violations = Collections.synchronizedList(new ArrayList<String>());
+	private static int failures;
+
+	public static void main(String[] args) throws Exception {
+		if (!"log".equalsIgnoreCase(System.getenv("QUERY_BUDGET"))) {
+			System.err.println("Run with QUERY_BUDGET=log and RATE_LIMIT_ENABLED=false; see scripts/test-query-budget.sh");
+			System.exit(2);
+		}
+		ACCESS_LOG.setLevel(Level.WARNING);
+		Logger.getLogger(QueryBudget.class.getName()).addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				if (record.getLevel().intValue() >= Level.SEVERE.intValue()) violations.add(record.getMessage());
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+
+		detectorChecks();
+
+		FakeDataStore dataStore = new FakeDataStore();
+		DataStore.install(dataStore);
+		SkillBridge handler = new SkillBridge();
+		for (int[] size : new int[][] { { 5, 8 }, { 700, 1000 } }) {
+			dataStore.seed(size[0], size[1]);
+			System.out.printf("%n%d learnings, %d applied skills%n", size[0], size[1]);
+			System.out.printf("%-44s %-6s %s%n", "route", "status", "statements");
+			routes(handler, dataStore, size[0]);
+		}
+		purgeChecks(dataStore);
+
+		System.out.println();
+		if (failures > 0) {
+			System.out.println("FAILED: " + failures + " check(s)");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	// QueryBudget on its own, in fail mode
+	private static void detectorChecks() {
+		Map<String, Integer> budgets = new HashMap<String, Integer>();
+		budgets.put("GET /api/learning", 2);
+		QueryBudget budget = new QueryBudget(QueryBudget.Mode.FAIL, 5, budgets);
+
+		// Keyset paging: every full page is marked, so only the first page of each shape counts
+		budget.begin("GET", "/api/learning");
+		for (int i = 0; i < 20; i++) budget.record("learning.page", true).more();
+		budget.record("learning.page", true);
+		budget.record("applied.learningIdsPage", true);
+		budget.end();
+		check("keyset paging within budget", budget.violations() == 0);
+
+		// A loop over a batched template with short pages is an N+1
+		budget.begin("GET", "/api/unbudgeted");
+		check("N+1 on a batched template", throwsExceeded(budget, "applied.page", true, 6));
+		budget.end();
+
+		// An unbatched shape past the repeat limit
+		budget.begin("GET", "/api/unbudgeted");
+		check("N+1 on an unbatched template", throwsExceeded(budget, "learning.get", false, 6));
+		budget.end();
+
+		// Batched calls count toward the route budget unless they continue a full page
+		budget.begin("GET", "/api/learning");
+		budget.record("learning.page", true);
+		budget.record("applied.learningIdsPage", true);
+		check("batched calls count toward the budget", throwsExceeded(budget, "recommend.recentSources", true, 1));
+		budget.end();
+	}
+
+	private static boolean throwsExceeded(QueryBudget budget, String shape, boolean batched, int calls) {
+		try {
+			for (int i = 0; i < calls; i++) budget.record(shape, batched);
+			return false;
+		} catch (QueryBudget.Exceeded e) {
+			return true;
+		}
+	}
+
+	private static void routes(SkillBridge handler, FakeDataStore dataStore, int learnings) throws Exception {
+		long first = BASE_ID + 1;
+		long last = BASE_ID + learnings;
+		run(handler, dataStore, "GET", "/api/learning", null, null);
+		run(handler, dataStore, "GET", "/api/learning", "format=columnar", null);
+		run(handler, dataStore, "GET", "/api/bootstrap", null, null);
+		run(handler, dataStore, "GET", "/api/learning/" + first, null, null);
+		run(handler, dataStore, "GET", "/api/learning/" + first + "/applied", "limit=5", null);
+		run(handler, dataStore, "GET", "/api/applied/" + (BASE_ID + 1_000_001), null, null);
+		run(handler, dataStore, "GET", "/api/analytics/timeline", "bucket=month", null);
+		run(handler, dataStore, "GET", "/api/analytics/timeline", "bucket=week&category=Design", null);
+		run(handler, dataStore, "GET", "/api/recommendations", "k=5", null);
+		run(handler, dataStore, "GET", "/api/export", null, null);
+		run(handler, dataStore, "GET", "/api/export", "format=csv", null);
+		run(handler, dataStore, "POST", "/api/learning", null,
+			"{\"topic\":\"Budget test " + learnings + "\",\"category\":\"Testing\",\"source\":\"QueryBudgetTest\"}");
+		run(handler, dataStore, "POST", "/api/learning/" + first + "/applied", null,
+			"{\"type\":\"project\",\"notes\":\"n\",\"applied_action\":\"a\"}");
+
+		StringBuilder ndjson = new StringBuilder();
+		for (int i = 0; i < 450; i++) {
+			ndjson.append("{\"record\":\"learning\",\"id\":\"i").append(i).append("\",\"topic\":\"Imported ").append(learnings).append('-')
+				.append(i).append("\",\"category\":\"Design\",\"source\":\"import\"}\n");
+			ndjson.append("{\"record\":\"applied\",\"learningId\":\"i").append(i).append("\",\"type\":\"work\"}\n");
+		}
+		run(handler, dataStore, "POST", "/api/import", null, ndjson.toString());
+
+		StringBuilder ids = new StringBuilder("{\"ids\":[");
+		for (long id = last; id > last - Math.min(250, learnings - 1); id--) {
+			if (id != last) ids.append(',');
+			ids.append('"').append(id).append('"');
+		}
+		run(handler, dataStore, "POST", "/api/learning/bulk-delete", null, ids.append("]}").toString());
+		run(handler, dataStore, "DELETE", "/api/learning/" + first, null, null);
+	}
+
+	// Batches of two so the SELECT and deleteRows run again after a full batch, as continuations
+	private static void purgeChecks(FakeDataStore dataStore) throws Exception {
+		dataStore.seed(700, 1000);
+		long learningId = BASE_ID + 2;
+		Map<String, Integer> budgets = new HashMap<String, Integer>();
+		budgets.put("PURGE /api/learning/{id}", 5);
+		QueryBudget budget = new QueryBudget(QueryBudget.Mode.FAIL, 5, budgets);
+		PurgeWorker worker = new PurgeWorker("Learning", APPLIED, 2, 1, 0L, budget);
+		long children = dataStore.count(APPLIED, "learning_id", learningId);
+		dataStore.statements = 0;
+		PurgeWorker.Status status = worker.enqueue(learningId);
+		for (int i = 0; i < 500 && status.finishedAt == 0; i++) Thread.sleep(10);
+
+		System.out.printf("%npurge of a learning with %d applied skills: %s, %d statements%n", children, status.state,
+			dataStore.statements);
+		if (status.error != null) System.out.println("  " + status.error);
+		check("purge finishes", status.state == PurgeWorker.State.DONE);
+		check("purge within its query budget", budget.violations() == 0);
+		check("purge deletes the applied skills", status.childrenDeleted == children && dataStore.count(APPLIED, "learning_id", learningId) == 0);
+		check("purge deletes the learning", dataStore.count("Learning", "ROWID", learningId) == 0);
+	}
+
+	private static void run(SkillBridge handler, FakeDataStore dataStore, String method, String uri, String query, String body)
+			throws Exception {
+		int before = violations.size();
+		dataStore.statements = 0;
+		FakeResponse response = new FakeResponse();
+		handler.runner(request(method, uri, query, body), response.proxy());
+		String route = method + " " + uri + (query != null ? "?" + query : "");
+		System.out.printf("%-44s %-6d %d%n", route.length() > 44 ? route.substring(0, 41) + "..." : route, response.status,
+			dataStore.statements);
+		check(route + " answers " + response.status, response.status < 500);
+		for (String violation : violations.subList(before, violations.size())) {
+			System.out.println("  " + violation);
+			check(route + " within its query budget", false);
+		}
+	}
+
+	private static void check(String what, boolean ok) {
+		if (ok) return;
+		failures++;
+		System.out.println("FAIL " + what);
+	}
+
+	private static HttpServletRequest request(String method, String uri, String query, String body) {
+		byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		Map<String, String> parameters = new HashMap<String, String>();
+		if (query != null) {
+			for (String pair : query.split("&")) {
+				int eq = pair.indexOf('=');
+				parameters.put(pair.substring(0, eq), pair.substring(eq + 1));
+			}
+		}
+		Map<String, Object> attributes = new HashMap<String, Object>();
+		ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+		ServletInputStream stream = new ServletInputStream() {
+			@Override
+			public int read() {
+				return in.read();
+			}
+
+			@Override
+			public boolean isFinished() {
+				return in.available() == 0;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setReadListener(ReadListener listener) {
+			}
+		};
+		return (HttpServletRequest) Proxy.newProxyInstance(QueryBudgetTest.class.getClassLoader(),
+			new Class<?>[] { HttpServletRequest.class }, (proxy, m, a) -> {
+				switch (m.getName()) {
+					case "getMethod": return method;
+					case "getRequestURI": return uri;
+					case "getQueryString": return query;
+					case "getParameter": return parameters.get((String) a[0]);
+					case "getHeader":
+						if ("Authorization".equalsIgnoreCase((String) a[0])) return "Zoho-oauthtoken query-budget-test";
+						if ("Content-Type".equalsIgnoreCase((String) a[0])) return body != null ? "application/json" : null;
+						return null;
+					case "getContentType": return body != null ? "application/json" : null;
+					case "getContentLength": return bytes.length;
+					case "getContentLengthLong": return (long) bytes.length;
+					case "getCharacterEncoding": return "UTF-8";
+					case "getInputStream": return stream;
+					case "getReader": return new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+					case "getAttribute": return attributes.get((String) a[0]);
+					case "setAttribute": attributes.put((String) a[0], a[1]); return null;
+					case "removeAttribute": attributes.remove((String) a[0]); return null;
+					case "hashCode": return System.identityHashCode(proxy);
+					case "equals": return proxy == a[0];
+					case "toString": return method + " " + uri;
+					default: return defaultValue(m.getReturnType());
+				}
+			});
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) return false;
+		if (type == int.class) return 0;
+		if (type == long.class) return 0L;
+		return null;
+	}
+
+	private static final class FakeResponse {
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		int status = 200;
+		PrintWriter writer;
+
+		HttpServletResponse proxy() {
+			ServletOutputStream stream = new ServletOutputStream() {
+				@Override
+				public void write(int b) {
+					body.write(b);
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setWriteListener(WriteListener listener) {
+				}
+			};
+			return (HttpServletResponse) Proxy.newProxyInstance(QueryBudgetTest.class.getClassLoader(),
+				new Class<?>[] { HttpServletResponse.class }, (proxy, m, a) -> {
+					switch (m.getName()) {
+						case "setStatus": status = (Integer) a[0]; return null;
+						case "getStatus": return status;
+						case "sendError": status = (Integer) a[0]; return null;
+						case "getCharacterEncoding": return "UTF-8";
+						case "getOutputStream": return stream;
+						case "getWriter":
+							if (writer == null) writer = new PrintWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), true);
+							return writer;
+						case "flushBuffer":
+							if (writer != null) writer.flush();
+							return null;
+						case "hashCode": return System.identityHashCode(proxy);
+						case "equals": return proxy == a[0];
+						default: return defaultValue(m.getReturnType());
+					}
+				});
+		}
+	}
+
+	/**
+	 * The Learning and AppliedSkill tables in memory, answering the ZCQL statements SkillBridge
+	 * compiles: SELECT with AND-ed comparisons, IN lists, ORDER BY, LIMIT and one aggregate, and
+	 * UPDATE and DELETE by condition. Statements outside that shape throw, so a new template that
+	 * the fake cannot run fails the test instead of passing on empty results.
+	 */
+	static final class FakeDataStore extends DataStore {
+		private static final Pattern SELECT = Pattern.compile(
+			"SELECT (.+?) FROM (\\w+)(?: WHERE (.+?))?(?: ORDER BY (\\S+) (ASC|DESC))?(?: LIMIT (\\d+))?");
+		private static final Pattern UPDATE = Pattern.compile("UPDATE (\\w+) SET (\\w+) = (\\w+) WHERE (.+)");
+		private static final Pattern DELETE = Pattern.compile("DELETE FROM (\\w+) WHERE (.+)");
+		private static final Pattern AGGREGATE = Pattern.compile("(COUNT|MIN|MAX)\\((\\w+)\\)");
+		private static final Pattern IN = Pattern.compile("(\\S+) IN \\((.*)\\)");
+		private static final Pattern COMPARE = Pattern.compile("(\\S+) (<=|>=|<|>|=) (.+)");
+		// ZCQL caps a SELECT at 300 rows
+		private static final int MAX_ROWS = 300;
+
+		private final Map<String, List<Map<String, Object>>> tables = new HashMap<String, List<Map<String, Object>>>();
+		private final Map<String, Long> tableIds = new HashMap<String, Long>();
+		private long nextId;
+		volatile int statements;
+
+		synchronized void seed(int learnings, int applied) {
+			tables.clear();
+			List<Map<String, Object>> learningRows = table("Learning", true);
+			LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0);
+			for (int i = 1; i <= learnings; i++) {
+				Map<String, Object> row = new LinkedHashMap<String, Object>();
+				row.put("ROWID", String.valueOf(BASE_ID + i));
+				row.put("CREATORID", String.valueOf(USER_ID));
+				row.put("CREATEDTIME", start.plusHours(7L * i).format(CREATED));
+				row.put("topic", "Topic " + i);
+				row.put("category", CATEGORIES[i % CATEGORIES.length]);
+				row.put("source", "Book " + (i % 10));
+				learningRows.add(row);
+			}
+			List<Map<String, Object>> appliedRows = table(APPLIED, true);
+			for (int i = 1; i <= applied; i++) {
+				Map<String, Object> row = new LinkedHashMap<String, Object>();
+				row.put("ROWID", String.valueOf(BASE_ID + 1_000_000 + i));
+				row.put("CREATORID", String.valueOf(USER_ID));
+				row.put("CREATEDTIME", start.plusHours(7L * i + 30).format(CREATED));
+				row.put("learning_id", String.valueOf(BASE_ID + 1 + i % Math.max(1, learnings / 2)));
+				row.put("type", "work");
+				row.put("notes", "Notes " + i);
+				row.put("applied_action", "Action " + i);
+				appliedRows.add(row);
+			}
+			nextId = BASE_ID + 2_000_000;
+		}
+
+		private List<Map<String, Object>> table(String name, boolean create) {
+			List<Map<String, Object>> rows = tables.get(name);
+			if (rows == null) {
+				if (!create) throw new IllegalArgumentException("No table " + name);
+				rows = new ArrayList<Map<String, Object>>();
+				tables.put(name, rows);
+			}
+			return rows;
+		}
+
+		@Override
+		synchronized ArrayList<ZCRowObject> executeQuery(ZCProject project, String zcql) {
+			statements++;
+			Matcher m;
+			if ((m = SELECT.matcher(zcql)).matches()) return select(m);
+			if ((m = UPDATE.matcher(zcql)).matches()) {
+				for (Map<String, Object> row : where(table(m.group(1), false), m.group(4))) row.put(m.group(2), m.group(3));
+				return new ArrayList<ZCRowObject>();
+			}
+			if ((m = DELETE.matcher(zcql)).matches()) {
+				List<Map<String, Object>> rows = table(m.group(1), false);
+				rows.removeAll(where(rows, m.group(2)));
+				return new ArrayList<ZCRowObject>();
+			}
+			throw new IllegalArgumentException("The fake Data Store cannot run: " + zcql);
+		}
+
+		private ArrayList<ZCRowObject> select(Matcher m) {
+			String name = m.group(2);
+			List<Map<String, Object>> rows = where(table(name, false), m.group(3));
+			ArrayList<ZCRowObject> out = new ArrayList<ZCRowObject>();
+			Matcher aggregate = AGGREGATE.matcher(m.group(1));
+			if (aggregate.matches()) {
+				long value = "COUNT".equals(aggregate.group(1)) ? rows.size() : 0;
+				for (Map<String, Object> row : rows) {
+					long v = Long.parseLong(String.valueOf(row.get(aggregate.group(2))));
+					if ("MIN".equals(aggregate.group(1))) value = value == 0 ? v : Math.min(value, v);
+					if ("MAX".equals(aggregate.group(1))) value = Math.max(value, v);
+				}
+				Map<String, Object> result = new HashMap<String, Object>();
+				result.put(m.group(1), String.valueOf(value));
+				out.add(row(name, result, null));
+				return out;
+			}
+			if (m.group(4) != null) {
+				String column = column(m.group(4));
+				Comparator<Map<String, Object>> order = Comparator.comparingLong(row -> Long.parseLong(String.valueOf(row.get(column))));
+				rows.sort("DESC".equals(m.group(5)) ? order.reversed() : order);
+			}
+			int limit = Math.min(MAX_ROWS, m.group(6) != null ? Integer.parseInt(m.group(6)) : MAX_ROWS);
+			String[] columns = m.group(1).split(", ");
+			for (int i = 0; i < rows.size() && i < limit; i++) out.add(row(name, rows.get(i), columns));
+			return out;
+		}
+
+		// ZCQL shape: { "Table": { column: value } } with the selected columns
+		@SuppressWarnings("unchecked")
+		private static ZCRowObject row(String table, Map<String, Object> values, String[] columns) {
+			JSONObject selected = new JSONObject();
+			if (columns == null) {
+				selected.putAll(values);
+			} else {
+				for (String column : columns) selected.put(column(column), values.get(column(column)));
+			}
+			JSONObject json = new JSONObject();
+			json.put(table, selected);
+			ZCRowObject row = ZCRowObject.getInstance();
+			row.setRowObject(json);
+			return row;
+		}
+
+		private static String column(String name) {
+			return name.substring(name.indexOf('.') + 1);
+		}
+
+		private static List<Map<String, Object>> where(List<Map<String, Object>> rows, String conditions) {
+			List<Map<String, Object>> out = new ArrayList<Map<String, Object>>();
+			for (Map<String, Object> row : rows) {
+				if (conditions == null || matches(row, conditions)) out.add(row);
+			}
+			return out;
+		}
+
+		private static boolean matches(Map<String, Object> row, String conditions) {
+			for (String condition : conditions.split(" AND ")) {
+				if (condition.startsWith("(") && condition.contains(" OR ")) {
+					// The live-row filter: deleted = false OR deleted IS NULL
+					if ("true".equals(String.valueOf(row.get("deleted")))) return false;
+					continue;
+				}
+				Matcher in = IN.matcher(condition);
+				if (in.matches()) {
+					String value = String.valueOf(row.get(column(in.group(1))));
+					boolean found = false;
+					for (String item : in.group(2).split(",")) found |= item.trim().equals(value);
+					if (!found) return false;
+					continue;
+				}
+				Matcher compare = COMPARE.matcher(condition);
+				if (!compare.matches()) throw new IllegalArgumentException("The fake Data Store cannot evaluate: " + condition);
+				Object actual = row.get(column(compare.group(1)));
+				String expected = compare.group(3);
+				if (expected.startsWith("'")) {
+					String literal = expected.substring(1, expected.length() - 1).replace("\\'", "'").replace("\\\\", "\\");
+					if (!literal.equals(actual)) return false;
+					continue;
+				}
+				if (actual == null) return false;
+				int cmp = Long.compare(Long.parseLong(String.valueOf(actual)), Long.parseLong(expected));
+				switch (compare.group(2)) {
+					case "=": if (cmp != 0) return false; break;
+					case "<": if (cmp >= 0) return false; break;
+					case ">": if (cmp <= 0) return false; break;
+					case "<=": if (cmp > 0) return false; break;
+					default: if (cmp < 0) return false; break;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		synchronized ZCTable table(String name) {
+			Long id = tableIds.get(name);
+			if (id == null) {
+				id = (long) (tableIds.size() + 1);
+				tableIds.put(name, id);
+			}
+			return new FakeTable(this, name, id);
+		}
+
+		@Override
+		synchronized ZCTable table(long id) {
+			for (Map.Entry<String, Long> table : tableIds.entrySet()) {
+				if (table.getValue() == id) return new FakeTable(this, table.getKey(), id);
+			}
+			throw new IllegalArgumentException("No table " + id);
+		}
+
+		@Override
+		Long currentUserId() {
+			return USER_ID;
+		}
+
+		synchronized List<ZCRowObject> insert(String name, List<ZCRowObject> rows) {
+			statements++;
+			List<ZCRowObject> inserted = new ArrayList<ZCRowObject>(rows.size());
+			for (ZCRowObject row : rows) inserted.add(insert(name, row));
+			return inserted;
+		}
+
+		@SuppressWarnings("unchecked")
+		private ZCRowObject insert(String name, ZCRowObject row) {
+			Map<String, Object> values = new LinkedHashMap<String, Object>(row.getRowObject());
+			values.put("ROWID", String.valueOf(nextId++));
+			values.put("CREATORID", String.valueOf(USER_ID));
+			values.put("CREATEDTIME", LocalDateTime.now().format(CREATED));
+			for (Map.Entry<String, Object> value : values.entrySet()) {
+				if (value.getValue() instanceof Number) value.setValue(String.valueOf(value.getValue()));
+			}
+			table(name, false).add(values);
+			JSONObject json = new JSONObject();
+			json.putAll(values);
+			ZCRowObject inserted = ZCRowObject.getInstance();
+			inserted.setRowObject(json);
+			return inserted;
+		}
+
+		synchronized List<ZCRowObject> delete(String name, List<Long> ids) {
+			statements++;
+			List<Map<String, Object>> rows = table(name, false);
+			for (Long id : ids) rows.removeIf(row -> String.valueOf(id).equals(row.get("ROWID")));
+			return new ArrayList<ZCRowObject>();
+		}
+
+		synchronized long count(String name, String column, long value) {
+			return table(name, false).stream().filter(row -> String.valueOf(value).equals(row.get(column))).count();
+		}
+
+		synchronized List<ZCRowObject> update(String name, List<ZCRowObject> rows) {
+			statements++;
+			for (ZCRowObject row : rows) {
+				String id = String.valueOf(row.get("ROWID"));
+				for (Map<String, Object> stored : table(name, false)) {
+					if (!id.equals(stored.get("ROWID"))) continue;
+					for (Object entry : row.getRowObject().entrySet()) {
+						Map.Entry<?, ?> value = (Map.Entry<?, ?>) entry;
+						stored.put(String.valueOf(value.getKey()), String.valueOf(value.getValue()));
+					}
+				}
+			}
+			return rows;
+		}
+	}
+
+	private static final class FakeTable extends ZCTable {
+		private final FakeDataStore dataStore;
+		private final String name;
+		private final long id;
+
+		FakeTable(FakeDataStore dataStore, String name, long id) {
+			this.dataStore = dataStore;
+			this.name = name;
+			this.id = id;
+		}
+
+		@Override
+		public Long getTableId() {
+			return id;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public ZCRowObject insertRow(ZCRowObject row) {
+			return dataStore.insert(name, Collections.singletonList(row)).get(0);
+		}
+
+		@Override
+		public List<ZCRowObject> insertRows(List<ZCRowObject> rows) {
+			return dataStore.insert(name, rows);
+		}
+
+		@Override
+		public List<ZCRowObject> updateRows(List<ZCRowObject> rows) {
+			return dataStore.update(name, rows);
+		}
+
+		@Override
+		public List<ZCRowObject> deleteRows(ArrayList<Long> ids) {
+			return dataStore.delete(name, ids);
+		}
+
+		@Override
+		public void deleteRow(Long id) {
+			dataStore.delete(name, Collections.singletonList(id));
+		}
+	}
+}